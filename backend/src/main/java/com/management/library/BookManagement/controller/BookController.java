@@ -2,7 +2,11 @@ package com.management.library.BookManagement.controller;
 
 import com.management.library.BookManagement.dto.*;
 import com.management.library.BookManagement.service.BookService;
+import com.management.library.Config.BatchLoader;
+import com.management.library.UserManagement.Exception.StaleVersionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +22,12 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BatchLoader<BookResponseDTO> bookBatchLoader;
+
+    @Value("${app.batch.max-ids:100}")
+    private int maxBatchIds;
+
     // Create a new book
     @PostMapping
     public ResponseEntity<BookResponseDTO> createBook(@Valid @RequestBody BookCreateDTO bookCreateDTO) {
@@ -40,6 +50,19 @@ public class BookController {
         }
     }
 
+    // Get several books by ID, e.g. /api/books/batch?ids=a,b,c (unknown IDs are skipped)
+    @GetMapping("/batch")
+    public ResponseEntity<List<BookResponseDTO>> getBooksByIds(@RequestParam List<String> ids) {
+        if (ids.size() > maxBatchIds) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(bookBatchLoader.getAll(ids), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // Get book by ID
     @GetMapping("/{id}")
     public ResponseEntity<BookResponseDTO> getBookById(@PathVariable String id) {
@@ -60,6 +83,8 @@ public class BookController {
             Optional<BookResponseDTO> updatedBook = bookService.updateBook(id, bookUpdateDTO);
             return updatedBook.map(bookResponseDTO -> new ResponseEntity<>(bookResponseDTO, HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (StaleVersionException | OptimisticLockingFailureException e) {
+            throw e; // 409 from GlobalExceptionHandler
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
@@ -19,6 +19,7 @@ public class BookResponseDTO {
     private String location;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 
     // Constructors
     public BookResponseDTO() {
@@ -165,4 +166,12 @@ public class BookResponseDTO {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -20,6 +20,8 @@ public class BookUpdateDTO {
 
     private String location;
 
+    private Long version; // version the client last read; null skips the check
+
     // Constructors
     public BookUpdateDTO() {
     }
@@ -137,4 +139,12 @@ public class BookUpdateDTO {
     public void setLocation(String location) {
         this.location = location;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
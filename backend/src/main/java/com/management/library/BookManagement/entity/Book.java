@@ -1,6 +1,7 @@
 package com.management.library.BookManagement.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import java.time.LocalDateTime;
@@ -53,6 +54,10 @@ public class Book {
     @Field("updatedat")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Field("version")
+    private Long version;
+
     // Constructors
     public Book() {
     }
@@ -196,4 +201,12 @@ public class Book {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
\ No newline at end of file
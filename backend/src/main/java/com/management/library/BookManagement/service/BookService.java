@@ -6,10 +6,19 @@ import com.management.library.BookManagement.dto.BookStatsDTO;
 import com.management.library.BookManagement.dto.BookUpdateDTO;
 import com.management.library.BookManagement.entity.Book;
 import com.management.library.BookManagement.repository.BookRepository;
+import com.management.library.Config.BatchLoader;
+import com.management.library.Config.OptimisticRetryExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -19,6 +28,15 @@ public class BookService {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private OptimisticRetryExecutor retryExecutor;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private BatchLoader<BookResponseDTO> bookBatchLoader;
+
     // Create a new book
     public BookResponseDTO createBook(BookCreateDTO bookCreateDTO) {
         Book book = new Book();
@@ -55,18 +73,30 @@ public class BookService {
         return book.map(this::convertToResponseDTO);
     }
 
+    // Get several books by ID with a single $in query, keyed by ID
+    public Map<String, BookResponseDTO> getBooksByIds(Collection<String> ids) {
+        return bookRepository.findAllById(ids).stream()
+                .map(this::convertToResponseDTO)
+                .collect(Collectors.toMap(BookResponseDTO::getId, b -> b));
+    }
+
     // Get book by book number
     public Optional<BookResponseDTO> getBookByBookNo(String bookNo) {
         Optional<Book> book = bookRepository.findByBookNo(bookNo);
         return book.map(this::convertToResponseDTO);
     }
 
-    // Update book
+    // Update book, retrying if a concurrent save wins the version race
     public Optional<BookResponseDTO> updateBook(String id, BookUpdateDTO bookUpdateDTO) {
+        return retryExecutor.execute("book.update", () -> applyUpdate(id, bookUpdateDTO));
+    }
+
+    private Optional<BookResponseDTO> applyUpdate(String id, BookUpdateDTO bookUpdateDTO) {
         Optional<Book> existingBookOpt = bookRepository.findById(id);
 
         if (existingBookOpt.isPresent()) {
             Book existingBook = existingBookOpt.get();
+            retryExecutor.checkVersion(bookUpdateDTO.getVersion(), existingBook.getVersion(), "Book " + id);
 
             // Update only non-null fields
             if (bookUpdateDTO.getBookNo() != null) {
@@ -109,16 +139,37 @@ public class BookService {
             existingBook.setUpdatedAt(LocalDateTime.now());
 
             Book updatedBook = bookRepository.save(existingBook);
+            bookBatchLoader.invalidate(id);
             return Optional.of(convertToResponseDTO(updatedBook));
         }
 
         return Optional.empty();
     }
 
+    // Move copies off (negative delta) or back onto the shelf with an atomic $inc, so concurrent
+    // checkouts and returns never overwrite each other; the count never drops below zero
+    public boolean adjustAvailableCopies(String id, int delta) {
+        if (id == null || delta == 0) return false;
+        Criteria match = Criteria.where("_id").is(id);
+        if (delta < 0) match = match.and("availablecopies").gte(-delta);
+        Book book = mongoTemplate.findAndModify(new Query(match),
+                new Update().inc("availablecopies", delta).set("updatedat", LocalDateTime.now()).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true), Book.class);
+        if (book == null) return false;
+
+        // Availability follows the count; a concurrent change that already moved the count sets it itself
+        int copies = book.getAvailableCopies() != null ? book.getAvailableCopies() : 0;
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id).and("availablecopies").is(copies)),
+                new Update().set("availability", copies > 0), Book.class);
+        bookBatchLoader.invalidate(id);
+        return true;
+    }
+
     // Delete book
     public boolean deleteBook(String id) {
         if (bookRepository.existsById(id)) {
             bookRepository.deleteById(id);
+            bookBatchLoader.invalidate(id);
             return true;
         }
         return false;
@@ -230,7 +281,7 @@ public class BookService {
 
     // Helper method to convert Book entity to BookResponseDTO
     private BookResponseDTO convertToResponseDTO(Book book) {
-        return new BookResponseDTO(
+        BookResponseDTO dto = new BookResponseDTO(
                 book.getId(),
                 book.getBookNo(),
                 book.getTitle(),
@@ -247,5 +298,7 @@ public class BookService {
                 book.getCreatedAt(),
                 book.getUpdatedAt()
         );
+        dto.setVersion(book.getVersion());
+        return dto;
     }
 }
\ No newline at end of file
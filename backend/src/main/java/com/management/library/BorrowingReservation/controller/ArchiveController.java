@@ -0,0 +1,34 @@
+package com.management.library.BorrowingReservation.controller;
+
+import com.management.library.BorrowingReservation.service.ArchivalService;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/archive")
+public class ArchiveController {
+    private final ArchivalService archivalService;
+
+    public ArchiveController(ArchivalService archivalService) {
+        this.archivalService = archivalService;
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return archivalService.getStatus();
+    }
+
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> run() {
+        if (Boolean.TRUE.equals(archivalService.getStatus().get("running"))) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(archivalService.getStatus());
+        }
+        CompletableFuture.runAsync(archivalService::run);
+        return ResponseEntity.accepted().body(archivalService.getStatus());
+    }
+}
@@ -0,0 +1,51 @@
+package com.management.library.BorrowingReservation.controller;
+
+import com.management.library.BookManagement.entity.Book;
+import com.management.library.BookManagement.repository.BookRepository;
+import com.management.library.BorrowingReservation.service.AvailabilityCalendar;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/availability")
+public class AvailabilityController {
+    private final AvailabilityCalendar calendar;
+    private final BookRepository bookRepository;
+
+    public AvailabilityController(AvailabilityCalendar calendar, BookRepository bookRepository) {
+        this.calendar = calendar;
+        this.bookRepository = bookRepository;
+    }
+
+    @GetMapping("/{bookId}")
+    public ResponseEntity<Map<String, Object>> availability(
+            @PathVariable("bookId") String bookId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Book book = bookRepository.findById(bookId).orElse(null);
+        if (book == null) return ResponseEntity.notFound().build();
+        LocalDate start = from != null ? from : LocalDate.now();
+        if (to != null && to.isBefore(start)) return ResponseEntity.badRequest().build();
+
+        // availableCopies is what is on the shelf; the calendar's loans are the rest of the stock
+        int onShelf = book.getAvailableCopies() != null ? Math.max(0, book.getAvailableCopies()) : 0;
+        int copies = onShelf + calendar.loansOut(bookId);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("bookId", bookId);
+        body.put("copies", copies);
+        body.put("from", start);
+        // A book with no copies at all has no date to offer, not a single phantom copy
+        body.put("nextFreeDate", copies > 0 ? calendar.nextFreeDate(bookId, copies, start) : null);
+        if (to != null) {
+            body.put("to", to);
+            body.put("freeBetween", copies > 0 && calendar.isFreeBetween(bookId, copies, start, to));
+        }
+        return ResponseEntity.ok(body);
+    }
+}
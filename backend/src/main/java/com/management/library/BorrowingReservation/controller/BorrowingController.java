@@ -1,14 +1,30 @@
 package com.management.library.BorrowingReservation.controller;
 
+import com.management.library.BookManagement.service.BookService;
+import com.management.library.BorrowingReservation.dto.BatchItemResult;
+import com.management.library.BorrowingReservation.dto.CheckoutItem;
 import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
 import com.management.library.BorrowingReservation.repository.BorrowingRepository;
+import com.management.library.BorrowingReservation.service.ActiveLoanRegistry;
+import com.management.library.BorrowingReservation.service.ArchivalService;
+import com.management.library.BorrowingReservation.service.BorrowingBatchService;
+import com.management.library.BorrowingReservation.service.CirculationEventPublisher;
 import com.management.library.BorrowingReservation.service.FeeService;
+import com.management.library.BorrowingReservation.service.HoldExpiryService;
 import com.management.library.BorrowingReservation.service.IdService;
+import com.management.library.BorrowingReservation.service.IdempotencyService;
+import com.management.library.Config.OptimisticRetryExecutor;
+import com.management.library.MemberManagement.Service.FineLedgerService;
+import com.management.library.UserManagement.Exception.BorrowingLimitExceededException;
 
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,34 +33,86 @@ public class BorrowingController {
     private final BorrowingRepository repository;
     private final IdService idService;
     private final FeeService feeService;
+    private final CirculationEventPublisher eventPublisher;
+    private final IdempotencyService idempotencyService;
+    private final BorrowingBatchService batchService;
+    private final ActiveLoanRegistry loanRegistry;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final ArchivalService archivalService;
+    private final FineLedgerService fineLedger;
+    private final HoldExpiryService holdExpiryService;
+    private final BookService bookService;
 
-    public BorrowingController(BorrowingRepository repository, IdService idService, FeeService feeService) {
+    public BorrowingController(BorrowingRepository repository, IdService idService, FeeService feeService,
+                               CirculationEventPublisher eventPublisher, IdempotencyService idempotencyService,
+                               BorrowingBatchService batchService, ActiveLoanRegistry loanRegistry,
+                               OptimisticRetryExecutor retryExecutor, ArchivalService archivalService,
+                               FineLedgerService fineLedger, HoldExpiryService holdExpiryService,
+                               BookService bookService) {
         this.repository = repository;
         this.idService = idService;
         this.feeService = feeService;
+        this.eventPublisher = eventPublisher;
+        this.idempotencyService = idempotencyService;
+        this.batchService = batchService;
+        this.loanRegistry = loanRegistry;
+        this.retryExecutor = retryExecutor;
+        this.archivalService = archivalService;
+        this.fineLedger = fineLedger;
+        this.holdExpiryService = holdExpiryService;
+        this.bookService = bookService;
     }
 
     @GetMapping
-    public List<Borrowing> list(@RequestParam(value = "memberId", required = false) String memberId) {
-        if (memberId != null && !memberId.isBlank()) {
-            return repository.findByMemberId(memberId);
-        }
-        return repository.findAll();
+    public List<Borrowing> list(@RequestParam(value = "memberId", required = false) String memberId,
+                                @RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+                                @RequestParam(value = "includeArchived", defaultValue = "true") boolean includeArchived) {
+        String member = memberId != null && !memberId.isBlank() ? memberId : null;
+        List<Borrowing> hot = member != null ? repository.findByMemberId(member) : repository.findAll();
+        // History stays visible after archival; unfiltered listings read a bounded window of the archive
+        return includeArchived ? archivalService.withArchivedBorrowings(hot, member, since) : hot;
     }
 
     @PostMapping
-    public Borrowing create(@Valid @RequestBody Borrowing body) {
+    public Borrowing create(@Valid @RequestBody Borrowing body,
+                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // Retried POSTs with the same key replay the first response instead of creating a duplicate
+        return idempotencyService.execute("borrowings", idempotencyKey, body, Borrowing.class, () -> doCreate(body));
+    }
+
+    private Borrowing doCreate(Borrowing body) {
         body.setId(null);
+        body.setVersion(null);
         body.setBorrowingNumber(idService.nextBorrowNumber());
         body.setStatus(body.getReturnDate() == null ? "ACTIVE" : "RETURNED");
         body.setLateFee(feeService.calculateLateFee(body.getDueDate(), body.getReturnDate(), 100));
-        return repository.save(body);
+        boolean active = "ACTIVE".equals(body.getStatus());
+        acquire(active, body.getMemberId());
+        Borrowing saved;
+        try {
+            saved = repository.save(body);
+        } catch (RuntimeException e) {
+            if (active) loanRegistry.release(body.getMemberId());
+            throw e;
+        }
+        eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.CHECKOUT, saved));
+        // The shelf count is kept here rather than by the client, so concurrent checkouts cannot overwrite it
+        if (active) bookService.adjustAvailableCopies(saved.getBookId(), -1);
+        if ("RETURNED".equals(saved.getStatus())) {
+            fineLedger.chargeLateFees(List.of(saved));
+            eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.RETURN, saved));
+        }
+        return saved;
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Borrowing> update(@PathVariable("id") String id, @Valid @RequestBody Borrowing body) {
-        return repository.findById(id)
+        return retryExecutor.execute("borrowing.update", () -> repository.findById(id)
                 .map(existing -> {
+                    retryExecutor.checkVersion(body.getVersion(), existing.getVersion(), "Borrowing " + id);
+                    boolean wasActive = "ACTIVE".equals(existing.getStatus());
+                    String previousMember = existing.getMemberId();
+                    String previousBook = existing.getBookId();
                     existing.setMemberId(body.getMemberId());
                     existing.setBookId(body.getBookId());
                     existing.setBorrowDate(body.getBorrowDate());
@@ -52,28 +120,109 @@ public class BorrowingController {
                     existing.setReturnDate(body.getReturnDate());
                     existing.setStatus(body.getReturnDate() == null ? "ACTIVE" : "RETURNED");
                     existing.setLateFee(feeService.calculateLateFee(existing.getDueDate(), existing.getReturnDate(), 100));
-                    return ResponseEntity.ok(repository.save(existing));
+                    boolean isActive = "ACTIVE".equals(existing.getStatus());
+                    // Move the loan slot only when the active member changes
+                    boolean moved = isActive && (!wasActive || !java.util.Objects.equals(previousMember, existing.getMemberId()));
+                    acquire(moved, existing.getMemberId());
+                    Borrowing saved;
+                    try {
+                        saved = repository.save(existing);
+                    } catch (RuntimeException e) {
+                        if (moved) loanRegistry.release(existing.getMemberId());
+                        throw e;
+                    }
+                    if (wasActive && (!isActive || moved)) {
+                        loanRegistry.release(previousMember);
+                    }
+                    // Keeps the availability calendar in step with edited dates and books
+                    if (wasActive && "RETURNED".equals(saved.getStatus())) {
+                        fineLedger.chargeLateFees(List.of(saved));
+                        eventPublisher.publish(edited(CirculationEvent.Type.RETURN, saved, previousBook));
+                    } else if (wasActive || isActive) {
+                        eventPublisher.publish(edited(CirculationEvent.Type.LOAN_UPDATED, saved, previousBook));
+                    }
+                    boolean bookChanged = !java.util.Objects.equals(previousBook, saved.getBookId());
+                    if (isActive && (!wasActive || bookChanged)) {
+                        bookService.adjustAvailableCopies(saved.getBookId(), -1);
+                    }
+                    if (wasActive && (!isActive || bookChanged)) {
+                        bookService.adjustAvailableCopies(previousBook, 1);
+                        holdExpiryService.promote(previousBook);
+                    }
+                    return ResponseEntity.ok(saved);
                 })
-                .orElse(ResponseEntity.notFound().build());
+                .orElseGet(() -> archivedOrNotFound(id)));
     }
 
     @PostMapping("/{id}/return")
     public ResponseEntity<Borrowing> markReturned(@PathVariable("id") String id) {
-        return repository.findById(id)
+        return retryExecutor.execute("borrowing.return", () -> repository.findById(id)
                 .map(existing -> {
+                    boolean wasActive = "ACTIVE".equals(existing.getStatus());
                     existing.setStatus("RETURNED");
                     existing.setReturnDate(java.time.LocalDate.now());
                     existing.setLateFee(feeService.calculateLateFee(existing.getDueDate(), existing.getReturnDate(), 100));
-                    return ResponseEntity.ok(repository.save(existing));
+                    Borrowing saved = repository.save(existing);
+                    if (wasActive) {
+                        loanRegistry.release(saved.getMemberId());
+                        fineLedger.chargeLateFees(List.of(saved));
+                        eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.RETURN, saved));
+                        bookService.adjustAvailableCopies(saved.getBookId(), 1);
+                        holdExpiryService.promote(saved.getBookId());
+                    }
+                    return ResponseEntity.ok(saved);
                 })
-                .orElse(ResponseEntity.notFound().build());
+                // An archived loan is already returned
+                .orElseGet(() -> archivalService.findArchivedBorrowing(id)
+                        .map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build())));
+    }
+
+    @PostMapping("/batch/checkout")
+    public List<BatchItemResult> batchCheckout(@RequestBody List<CheckoutItem> items) {
+        return batchService.checkout(items);
+    }
+
+    @PostMapping("/batch/return")
+    public List<BatchItemResult> batchReturn(@RequestBody List<String> borrowingIds) {
+        return batchService.returnAll(borrowingIds);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable("id") String id) {
-        if (!repository.existsById(id)) return ResponseEntity.notFound().build();
-        repository.deleteById(id);
-        return ResponseEntity.noContent().build();
+        return repository.findById(id)
+                .map(existing -> {
+                    repository.deleteById(id);
+                    if ("ACTIVE".equals(existing.getStatus())) {
+                        loanRegistry.release(existing.getMemberId());
+                        eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.LOAN_DELETED, existing));
+                        bookService.adjustAvailableCopies(existing.getBookId(), 1);
+                        holdExpiryService.promote(existing.getBookId());
+                    }
+                    return ResponseEntity.noContent().<Void>build();
+                })
+                .orElseGet(() -> archivalService.deleteArchivedBorrowing(id)
+                        ? ResponseEntity.noContent().build()
+                        : ResponseEntity.notFound().build());
+    }
+
+    private static CirculationEvent edited(CirculationEvent.Type type, Borrowing saved, String previousBook) {
+        CirculationEvent event = CirculationEvent.of(type, saved);
+        if (!java.util.Objects.equals(previousBook, saved.getBookId())) event.setPreviousBookId(previousBook);
+        return event;
+    }
+
+    // Archived loans are history and are not edited; say so instead of claiming they do not exist
+    private ResponseEntity<Borrowing> archivedOrNotFound(String id) {
+        return archivalService.findArchivedBorrowing(id).isPresent()
+                ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                : ResponseEntity.notFound().build();
+    }
+
+    private void acquire(boolean needed, String memberId) {
+        if (needed && !loanRegistry.tryAcquire(memberId)) {
+            throw new BorrowingLimitExceededException("Borrowing limit reached for member: " + memberId);
+        }
     }
 }
 
@@ -0,0 +1,55 @@
+package com.management.library.BorrowingReservation.controller;
+
+import com.management.library.BorrowingReservation.entity.CirculationRollup;
+import com.management.library.BorrowingReservation.service.CirculationEventPublisher;
+import com.management.library.BorrowingReservation.service.CirculationRollupService;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/reports/circulation")
+public class CirculationReportController {
+    private final CirculationRollupService rollupService;
+    private final CirculationEventPublisher eventPublisher;
+
+    public CirculationReportController(CirculationRollupService rollupService, CirculationEventPublisher eventPublisher) {
+        this.rollupService = rollupService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Event log health: events waiting in the buffer, awaiting a retried write, and dropped on overflow
+    @GetMapping("/events")
+    public Map<String, Long> events() {
+        return eventPublisher.getStats();
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CirculationRollup>> report(
+            @RequestParam(defaultValue = CirculationRollupService.DAY) String period,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String p = period.toUpperCase();
+        if (!p.equals(CirculationRollupService.DAY) && !p.equals(CirculationRollupService.MONTH)) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate start = p.equals(CirculationRollupService.MONTH) ? from.withDayOfMonth(1) : from;
+        return ResponseEntity.ok(rollupService.find(p, start, to));
+    }
+
+    // Rebuilds only the months covering [from, to]; both bounds are optional
+    @PostMapping("/backfill")
+    public ResponseEntity<Map<String, Object>> backfill(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) return ResponseEntity.badRequest().build();
+        CompletableFuture.runAsync(() -> rollupService.backfill(from, to));
+        return ResponseEntity.accepted().body(Map.of("status", "started"));
+    }
+}
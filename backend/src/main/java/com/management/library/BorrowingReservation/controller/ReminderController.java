@@ -0,0 +1,32 @@
+package com.management.library.BorrowingReservation.controller;
+
+import com.management.library.BorrowingReservation.service.DueDateReminderService;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/borrowings/reminders")
+public class ReminderController {
+    private final DueDateReminderService reminderService;
+
+    public ReminderController(DueDateReminderService reminderService) {
+        this.reminderService = reminderService;
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return reminderService.getStatus();
+    }
+
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> run() {
+        if (!reminderService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(reminderService.getStatus());
+        }
+        return ResponseEntity.accepted().body(reminderService.getStatus());
+    }
+}
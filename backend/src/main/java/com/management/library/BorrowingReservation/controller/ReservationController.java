@@ -1,12 +1,19 @@
 package com.management.library.BorrowingReservation.controller;
 
-import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
 import com.management.library.BorrowingReservation.entity.Reservation;
-import com.management.library.BorrowingReservation.repository.BorrowingRepository;
 import com.management.library.BorrowingReservation.repository.ReservationRepository;
+import com.management.library.BorrowingReservation.service.ArchivalService;
+import com.management.library.BorrowingReservation.service.CirculationEventPublisher;
+import com.management.library.BorrowingReservation.service.HoldExpiryService;
 import com.management.library.BorrowingReservation.service.IdService;
+import com.management.library.BorrowingReservation.service.IdempotencyService;
+import com.management.library.BorrowingReservation.service.ReservationService;
+import com.management.library.Config.OptimisticRetryExecutor;
 
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,96 +25,131 @@ import java.util.List;
 public class ReservationController {
     private final ReservationRepository repository;
     private final IdService idService;
-    private final BorrowingRepository borrowingRepository;
-
-    public ReservationController(ReservationRepository repository, IdService idService, BorrowingRepository borrowingRepository) {
+    private final ReservationService reservationService;
+    private final CirculationEventPublisher eventPublisher;
+    private final IdempotencyService idempotencyService;
+    private final HoldExpiryService holdExpiryService;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final ArchivalService archivalService;
+
+    public ReservationController(ReservationRepository repository, IdService idService, ReservationService reservationService,
+                                 CirculationEventPublisher eventPublisher, IdempotencyService idempotencyService,
+                                 HoldExpiryService holdExpiryService, OptimisticRetryExecutor retryExecutor,
+                                 ArchivalService archivalService) {
         this.repository = repository;
         this.idService = idService;
-        this.borrowingRepository = borrowingRepository;
+        this.reservationService = reservationService;
+        this.eventPublisher = eventPublisher;
+        this.idempotencyService = idempotencyService;
+        this.holdExpiryService = holdExpiryService;
+        this.retryExecutor = retryExecutor;
+        this.archivalService = archivalService;
     }
 
     @GetMapping
-    public List<Reservation> list(@RequestParam(value = "memberId", required = false) String memberId) {
-        if (memberId != null && !memberId.isBlank()) {
-            return repository.findByMemberId(memberId);
-        }
-        return repository.findAll();
+    public List<Reservation> list(@RequestParam(value = "memberId", required = false) String memberId,
+                                  @RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+                                  @RequestParam(value = "includeArchived", defaultValue = "true") boolean includeArchived) {
+        String member = memberId != null && !memberId.isBlank() ? memberId : null;
+        List<Reservation> hot = member != null ? repository.findByMemberId(member) : repository.findAll();
+        // History stays visible after archival; unfiltered listings read a bounded window of the archive
+        return includeArchived ? archivalService.withArchivedReservations(hot, member, since) : hot;
     }
 
     @PostMapping
-    public Reservation create(@Valid @RequestBody Reservation body) {
+    public Reservation create(@Valid @RequestBody Reservation body,
+                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return idempotencyService.execute("reservations", idempotencyKey, body, Reservation.class, () -> doCreate(body));
+    }
+
+    private Reservation doCreate(Reservation body) {
         body.setId(null);
+        body.setVersion(null);
         body.setReservationNumber(idService.nextReserveNumber());
         if (body.getStatus() == null) body.setStatus("PENDING");
-        return repository.save(body);
+        // The pickup window starts when a copy is assigned, not when the hold is placed
+        body.setHoldExpiresAt(null);
+        boolean closed = "RECEIVED".equals(body.getStatus()) || "CANCELLED".equals(body.getStatus());
+        body.setClosedAt(closed ? java.time.LocalDateTime.now() : null);
+        Reservation saved = repository.save(body);
+        eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.HOLD_PLACED, saved));
+        if (!"PENDING".equals(saved.getStatus())) return saved;
+        holdExpiryService.promote(saved.getBookId());
+        return repository.findById(saved.getId()).orElse(saved);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Reservation> update(@PathVariable("id") String id, @Valid @RequestBody Reservation body) {
-        return repository.findById(id)
+        return retryExecutor.execute("reservation.update", () -> repository.findById(id)
                 .map(existing -> {
+                    retryExecutor.checkVersion(body.getVersion(), existing.getVersion(), "Reservation " + id);
+                    boolean wasCancelled = "CANCELLED".equals(existing.getStatus());
+                    boolean wasPending = "PENDING".equals(existing.getStatus());
+                    String previousBook = existing.getBookId();
                     existing.setMemberId(body.getMemberId());
                     existing.setBookId(body.getBookId());
                     existing.setReservationDate(body.getReservationDate());
                     existing.setStatus(body.getStatus());
-                    return ResponseEntity.ok(repository.save(existing));
-                })
-                .orElse(ResponseEntity.notFound().build());
-    }
-
-    @PostMapping("/{id}/receive")
-    public ResponseEntity<?> markReceived(@PathVariable("id") String id) {
-        return (ResponseEntity<Reservation>) repository.findById(id)
-                .map(existing -> {
-                    // Allow only if currently PENDING
-                    if (existing.getStatus() != null && !existing.getStatus().equals("PENDING")) {
-                        return ResponseEntity.badRequest().body(null);
+                    boolean closed = "RECEIVED".equals(existing.getStatus()) || "CANCELLED".equals(existing.getStatus());
+                    if (!closed) {
+                        existing.setClosedAt(null);
+                    } else if (existing.getClosedAt() == null) {
+                        existing.setClosedAt(java.time.LocalDateTime.now());
                     }
-
-                    // Prevent duplicate ACTIVE borrowing for same member-book
-                    if (borrowingRepository.existsByMemberIdAndBookIdAndStatus(existing.getMemberId(), existing.getBookId(), "ACTIVE")) {
-                        // Still mark reservation as RECEIVED to close it, but do not create another borrowing
-                        existing.setStatus("RECEIVED");
-                        Reservation updated = repository.save(existing);
-                        return ResponseEntity.ok(updated);
-                    }
-
-                    existing.setStatus("RECEIVED");
+                    boolean keepsCopy = wasPending && "PENDING".equals(existing.getStatus())
+                            && java.util.Objects.equals(previousBook, existing.getBookId());
+                    if (!keepsCopy) existing.setHoldExpiresAt(null);
                     Reservation saved = repository.save(existing);
-
-                    // When a reservation is received, create a borrowing entry automatically
-                    Borrowing borrowing = new Borrowing();
-                    borrowing.setId(null);
-                    borrowing.setBorrowingNumber(idService.nextBorrowNumber());
-                    borrowing.setMemberId(saved.getMemberId());
-                    borrowing.setBookId(saved.getBookId());
-                    LocalDate borrowDate = LocalDate.now();
-                    borrowing.setBorrowDate(borrowDate);
-                    borrowing.setDueDate(borrowDate.plusDays(14));
-                    borrowing.setReturnDate(null);
-                    borrowing.setStatus("ACTIVE");
-                    borrowing.setLateFee(0);
-                    borrowingRepository.save(borrowing);
-
-                    // Auto-cancel other PENDING reservations for the same member and book
-                    var others = repository.findByMemberIdAndBookIdAndStatus(saved.getMemberId(), saved.getBookId(), "PENDING");
-                    for (Reservation r : others) {
-                        if (!r.getId().equals(saved.getId())) {
-                            r.setStatus("CANCELLED");
-                            repository.save(r);
-                        }
+                    if (keepsCopy) {
+                        holdExpiryService.track(saved);
+                    } else {
+                        holdExpiryService.untrack(saved.getId());
+                        holdExpiryService.promote(java.util.Arrays.asList(previousBook, saved.getBookId()));
+                    }
+                    if (!wasCancelled && "CANCELLED".equals(saved.getStatus())) {
+                        eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.HOLD_CANCELLED, saved));
                     }
-
                     return ResponseEntity.ok(saved);
                 })
-                .orElseGet(() -> ResponseEntity.notFound().build());
+                // Archived holds are history and are not edited
+                .orElseGet(() -> archivalService.findArchivedReservation(id).isPresent()
+                        ? ResponseEntity.status(HttpStatus.CONFLICT).<Reservation>build()
+                        : ResponseEntity.notFound().build()));
+    }
+
+    @PostMapping("/{id}/receive")
+    public ResponseEntity<Reservation> markReceived(@PathVariable("id") String id) {
+        try {
+            return reservationService.receive(id)
+                    .map(received -> {
+                        holdExpiryService.untrack(received.getId());
+                        return ResponseEntity.ok(received);
+                    })
+                    // An archived hold is already RECEIVED or CANCELLED, so it cannot be received again
+                    .orElseGet(() -> archivalService.findArchivedReservation(id).isPresent()
+                            ? ResponseEntity.badRequest().<Reservation>body(null)
+                            : ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            // Allow only if currently PENDING
+            return ResponseEntity.badRequest().body(null);
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable("id") String id) {
-        if (!repository.existsById(id)) return ResponseEntity.notFound().build();
-        repository.deleteById(id);
-        return ResponseEntity.noContent().build();
+        return repository.findById(id)
+                .map(existing -> {
+                    repository.deleteById(id);
+                    holdExpiryService.untrack(id);
+                    if ("PENDING".equals(existing.getStatus())) {
+                        eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.HOLD_CANCELLED, existing));
+                    }
+                    if (existing.getHoldExpiresAt() != null) holdExpiryService.promote(existing.getBookId());
+                    return ResponseEntity.noContent().<Void>build();
+                })
+                .orElseGet(() -> archivalService.deleteArchivedReservation(id)
+                        ? ResponseEntity.noContent().build()
+                        : ResponseEntity.notFound().build());
     }
 }
 
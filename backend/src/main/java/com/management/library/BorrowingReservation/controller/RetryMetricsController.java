@@ -0,0 +1,23 @@
+package com.management.library.BorrowingReservation.controller;
+
+import com.management.library.Config.OptimisticRetryExecutor;
+
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/optimistic-retries")
+public class RetryMetricsController {
+    private final OptimisticRetryExecutor retryExecutor;
+
+    public RetryMetricsController(OptimisticRetryExecutor retryExecutor) {
+        this.retryExecutor = retryExecutor;
+    }
+
+    // Conflicts, recovered retries and exhausted retries per operation since startup
+    @GetMapping("/metrics")
+    public Map<String, Map<String, Long>> metrics() {
+        return retryExecutor.getMetrics();
+    }
+}
@@ -0,0 +1,24 @@
+package com.management.library.BorrowingReservation.dto;
+
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private int index; // position in the request list
+    private boolean success;
+    private String error;
+    private Borrowing borrowing;
+
+    public static BatchItemResult ok(int index, Borrowing borrowing) {
+        return new BatchItemResult(index, true, null, borrowing);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, false, error, null);
+    }
+}
@@ -0,0 +1,16 @@
+package com.management.library.BorrowingReservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutItem {
+    private String memberId;
+    private String bookId;
+    private LocalDate dueDate; // optional, defaults to 14 days from today
+}
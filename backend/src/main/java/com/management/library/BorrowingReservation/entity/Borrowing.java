@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -23,6 +24,9 @@ public class Borrowing {
     private LocalDate returnDate; // nullable
     private String status; // ACTIVE or RETURNED
     private int lateFee;
+    private String returnBatch; // id of the batch return that closed this loan, if any
+    @Version
+    private Long version;
 }
 
 
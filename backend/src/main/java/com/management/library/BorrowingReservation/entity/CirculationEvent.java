@@ -0,0 +1,60 @@
+package com.management.library.BorrowingReservation.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("circulation_events")
+public class CirculationEvent {
+    @Id
+    private String id; // assigned when published, so retried inserts are idempotent
+    private Type type;
+    private String borrowingId; // set for CHECKOUT / RETURN / LOAN_UPDATED / LOAN_DELETED
+    private String reservationId; // set for HOLD_* events
+    private String memberId;
+    private String bookId;
+    private String previousBookId; // set when an edit moved the loan to another book
+    private LocalDate borrowDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate; // set for RETURN
+    private LocalDateTime holdExpiresAt; // set for HOLD_PLACED / HOLD_ASSIGNED
+    private int lateFee;
+    private LocalDateTime occurredAt;
+
+    public enum Type {
+        CHECKOUT, RETURN, LOAN_UPDATED, LOAN_DELETED, HOLD_PLACED, HOLD_ASSIGNED, HOLD_RECEIVED, HOLD_CANCELLED, HOLD_EXPIRED
+    }
+
+    public static CirculationEvent of(Type type, Borrowing borrowing) {
+        CirculationEvent event = new CirculationEvent();
+        event.setType(type);
+        event.setBorrowingId(borrowing.getId());
+        event.setMemberId(borrowing.getMemberId());
+        event.setBookId(borrowing.getBookId());
+        event.setBorrowDate(borrowing.getBorrowDate());
+        event.setDueDate(borrowing.getDueDate());
+        event.setReturnDate(borrowing.getReturnDate());
+        event.setLateFee(borrowing.getLateFee());
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+
+    public static CirculationEvent of(Type type, Reservation reservation) {
+        CirculationEvent event = new CirculationEvent();
+        event.setType(type);
+        event.setReservationId(reservation.getId());
+        event.setMemberId(reservation.getMemberId());
+        event.setBookId(reservation.getBookId());
+        event.setHoldExpiresAt(reservation.getHoldExpiresAt());
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,37 @@
+package com.management.library.BorrowingReservation.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("circulation_rollups")
+public class CirculationRollup {
+    @Id
+    private String id; // DAY:2025-10-19 or MONTH:2025-10
+    private String period; // DAY or MONTH
+    private LocalDate bucketStart;
+    private long checkouts;
+    private long returns;
+    private long overdueReturns; // returned after the due date
+    private long fees;
+    private Map<String, Counts> byGenre;
+    private Map<String, Counts> byLocation; // branch / shelf location of the book
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Counts {
+        private long checkouts;
+        private long returns;
+        private long overdueReturns;
+        private long fees;
+    }
+}
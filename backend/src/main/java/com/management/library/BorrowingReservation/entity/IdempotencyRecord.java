@@ -0,0 +1,23 @@
+package com.management.library.BorrowingReservation.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("idempotency_keys")
+public class IdempotencyRecord {
+    @Id
+    private String id; // scope:key, e.g. borrowings:3f1c...
+    private boolean completed;
+    private String response; // JSON body replayed for repeated keys
+    private String fingerprint; // SHA-256 of the request body the key was first used with
+    private Date lockedUntil; // claim lease while not completed; an expired lease may be taken over
+    private Date createdAt; // TTL-indexed
+}
@@ -4,9 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
@@ -20,6 +22,10 @@ public class Reservation {
     private String bookId;
     private LocalDate reservationDate;
     private String status; // PENDING, RECEIVED, CANCELLED
+    private LocalDateTime holdExpiresAt; // pickup deadline while PENDING
+    private LocalDateTime closedAt; // when it became RECEIVED or CANCELLED; drives archival
+    @Version
+    private Long version;
 }
 
 
@@ -7,6 +7,7 @@ import com.management.library.BorrowingReservation.entity.Borrowing;
 public interface BorrowingRepository extends MongoRepository<Borrowing, String> {
     boolean existsByBorrowingNumber(String borrowingNumber);
     java.util.List<Borrowing> findByMemberId(String memberId);
+    java.util.List<Borrowing> findByMemberIdIn(java.util.Collection<String> memberIds);
     boolean existsByMemberIdAndBookIdAndStatus(String memberId, String bookId, String status);
 }
 
@@ -6,6 +6,7 @@ import com.management.library.BorrowingReservation.entity.Reservation;
 
 public interface ReservationRepository extends MongoRepository<Reservation, String> {
     java.util.List<Reservation> findByMemberId(String memberId);
+    java.util.List<Reservation> findByMemberIdIn(java.util.Collection<String> memberIds);
     java.util.List<Reservation> findByMemberIdAndBookIdAndStatus(String memberId, String bookId, String status);
 }
 
@@ -0,0 +1,145 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.MemberManagement.Entity.Member;
+import com.management.library.MemberManagement.Repository.MemberRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory count of ACTIVE loans per member, used to enforce {@link Member#getBorrowingLimit()}
+ * on checkout without counting borrowings. Counters are loaded by one aggregation at startup and
+ * then moved by the checkout and return paths; acquiring is a CAS against the member's limit.
+ *
+ * <p>Borrowings may reference a member by business memberId or by Mongo id, so both keys are
+ * aliased to one counter.
+ */
+@Service
+public class ActiveLoanRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveLoanRegistry.class);
+    private static final int DEFAULT_LIMIT = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final MemberRepository memberRepository;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>(); // keyed by Member._id
+    private final Map<String, String> aliases = new ConcurrentHashMap<>(); // memberId or _id -> Member._id
+
+    public ActiveLoanRegistry(MongoTemplate mongoTemplate, MemberRepository memberRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.memberRepository = memberRepository;
+    }
+
+    private static final class Slot {
+        final AtomicInteger active = new AtomicInteger();
+        volatile int limit;
+
+        Slot(int limit) {
+            this.limit = limit;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            Aggregation agg = Aggregation.newAggregation(
+                    Aggregation.match(Criteria.where("status").is("ACTIVE")),
+                    Aggregation.group("memberId").count().as("active"));
+            Map<String, Integer> counts = new HashMap<>();
+            for (Document row : mongoTemplate.aggregate(agg, Borrowing.class, Document.class).getMappedResults()) {
+                Object key = row.get("_id");
+                if (key != null) counts.put(key.toString(), ((Number) row.get("active")).intValue());
+            }
+
+            List<String> keys = new ArrayList<>(counts.keySet());
+            for (int from = 0; from < keys.size(); from += 500) {
+                List<String> chunk = keys.subList(from, Math.min(from + 500, keys.size()));
+                memberRepository.findByMemberKeys(chunk).forEach(this::register);
+            }
+            counts.forEach((key, n) -> slotFor(key).active.addAndGet(n));
+            log.info("Active loan registry loaded {} members with open loans", counts.size());
+        } catch (Exception e) {
+            log.warn("Could not load active loan counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reserves one loan slot for the member.
+     *
+     * @return false if the member already has {@code borrowingLimit} active loans
+     */
+    public boolean tryAcquire(String memberKey) {
+        if (memberKey == null) return true;
+        Slot slot = slotFor(memberKey);
+        while (true) {
+            int current = slot.active.get();
+            if (current >= slot.limit) return false;
+            if (slot.active.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    public void release(String memberKey) {
+        if (memberKey == null) return;
+        slotFor(memberKey).active.updateAndGet(n -> Math.max(0, n - 1));
+    }
+
+    /** Gives the slot back if the surrounding transaction rolls back. */
+    public void releaseOnRollback(String memberKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) release(memberKey);
+            }
+        });
+    }
+
+    public int activeLoans(String memberKey) {
+        return memberKey == null ? 0 : slotFor(memberKey).active.get();
+    }
+
+    /** Picks up limit changes made through member updates. */
+    public void refresh(Member member) {
+        Slot slot = slots.get(member.getId());
+        if (slot != null) slot.limit = member.getBorrowingLimit();
+        register(member);
+    }
+
+    private Slot slotFor(String memberKey) {
+        String canonical = aliases.get(memberKey);
+        if (canonical == null) {
+            // First time this key is seen: one member lookup, then it is served from memory
+            List<Member> found = memberRepository.findByMemberKeys(List.of(memberKey));
+            if (found.isEmpty()) {
+                Slot slot = slots.computeIfAbsent(memberKey, k -> new Slot(DEFAULT_LIMIT));
+                aliases.putIfAbsent(memberKey, memberKey);
+                return slot;
+            }
+            register(found.get(0));
+            canonical = aliases.get(memberKey);
+        }
+        return slots.get(canonical);
+    }
+
+    private void register(Member member) {
+        slots.computeIfAbsent(member.getId(), k -> new Slot(member.getBorrowingLimit()));
+        aliases.put(member.getId(), member.getId());
+        if (member.getMemberId() != null) aliases.put(member.getMemberId(), member.getId());
+    }
+}
@@ -0,0 +1,227 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.Reservation;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moves closed circulation records out of the hot collections: RETURNED borrowings and
+ * RECEIVED/CANCELLED reservations closed longer ago than a configurable age go to
+ * {@code borrowings_archive} and {@code reservations_archive}. Each batch is upserted into the archive before it is deleted
+ * from the hot collection, so an interrupted run leaves at worst a duplicate that the next run
+ * cleans up. Listings merge both tiers by default; a listing without a member reads only the
+ * archived records closed within {@code list-days}, so it never scans the whole archive. Archived
+ * records can still be read and deleted by id but are no longer edited.
+ */
+@Service
+public class ArchivalService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivalService.class);
+    public static final String BORROWINGS_ARCHIVE = "borrowings_archive";
+    public static final String RESERVATIONS_ARCHIVE = "reservations_archive";
+
+    private final MongoTemplate mongoTemplate;
+    private final int borrowingDays;
+    private final int reservationDays;
+    private final int batchSize;
+
+    private final int listDays;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong borrowingsMoved = new AtomicLong();
+    private final AtomicLong reservationsMoved = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+
+    public ArchivalService(MongoTemplate mongoTemplate,
+                           @Value("${app.archive.borrowings.after-days:180}") int borrowingDays,
+                           @Value("${app.archive.reservations.after-days:90}") int reservationDays,
+                           @Value("${app.archive.batch-size:500}") int batchSize,
+                           @Value("${app.archive.list-days:365}") int listDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.borrowingDays = borrowingDays;
+        this.reservationDays = reservationDays;
+        this.batchSize = batchSize;
+        this.listDays = listDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(BORROWINGS_ARCHIVE).createIndex(new Index().on("memberId", Sort.Direction.ASC));
+            mongoTemplate.indexOps(RESERVATIONS_ARCHIVE).createIndex(new Index().on("memberId", Sort.Direction.ASC));
+            mongoTemplate.indexOps(BORROWINGS_ARCHIVE).createIndex(new Index().on("returnDate", Sort.Direction.ASC));
+            mongoTemplate.indexOps(RESERVATIONS_ARCHIVE).createIndex(new Index().on("closedAt", Sort.Direction.ASC));
+            mongoTemplate.indexOps(Borrowing.class).createIndex(new Index()
+                    .on("status", Sort.Direction.ASC).on("returnDate", Sort.Direction.ASC));
+            mongoTemplate.indexOps(Reservation.class).createIndex(new Index()
+                    .on("status", Sort.Direction.ASC).on("closedAt", Sort.Direction.ASC));
+        } catch (Exception e) {
+            log.warn("Could not create archive indexes: {}", e.getMessage());
+        }
+    }
+
+    /** @return false if a run is already in progress */
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) return false;
+        try {
+            LocalDate today = LocalDate.now();
+            long loans = move(Borrowing.class, BORROWINGS_ARCHIVE, Borrowing::getId,
+                    Criteria.where("status").is("RETURNED").and("returnDate").lt(today.minusDays(borrowingDays)));
+            // Age holds by when they closed; rows closed before closedAt existed only have their reservation date
+            LocalDate holdCutoff = today.minusDays(reservationDays);
+            long holds = move(Reservation.class, RESERVATIONS_ARCHIVE, Reservation::getId,
+                    Criteria.where("status").in("RECEIVED", "CANCELLED").orOperator(
+                            Criteria.where("closedAt").lt(holdCutoff.atStartOfDay()),
+                            Criteria.where("closedAt").is(null).and("reservationDate").lt(holdCutoff)));
+            borrowingsMoved.addAndGet(loans);
+            reservationsMoved.addAndGet(holds);
+            lastRunAt = LocalDateTime.now();
+            log.info("Archived {} borrowings and {} reservations", loans, holds);
+            return true;
+        } catch (Exception e) {
+            log.error("Archival run failed: {}", e.getMessage());
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private <T> long move(Class<T> type, String archive, Function<T, String> idOf, Criteria eligible) {
+        long moved = 0;
+        String lastId = null;
+        while (true) {
+            Criteria page = lastId == null ? eligible
+                    : new Criteria().andOperator(eligible, Criteria.where("_id").gt(toKey(lastId)));
+            List<T> batch = mongoTemplate.find(new Query(page).with(Sort.by("_id")).limit(batchSize), type);
+            if (batch.isEmpty()) return moved;
+
+            BulkOperations copy = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type, archive);
+            List<Object> ids = new ArrayList<>(batch.size());
+            for (T doc : batch) {
+                ids.add(toKey(idOf.apply(doc)));
+                copy.replaceOne(new Query(Criteria.where("_id").is(toKey(idOf.apply(doc)))), doc,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            copy.execute();
+
+            // Only delete what is still eligible; a record reopened meanwhile stays hot
+            moved += mongoTemplate.remove(new Query(new Criteria().andOperator(
+                    Criteria.where("_id").in(ids), eligible)), type).getDeletedCount();
+            lastId = idOf.apply(batch.get(batch.size() - 1));
+        }
+    }
+
+    private static Object toKey(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    /**
+     * Adds archived loans to a listing: all of the member's, or without a member those returned on
+     * or after {@code since} (default: the last {@code list-days} days).
+     */
+    public List<Borrowing> withArchivedBorrowings(List<Borrowing> hot, String memberId, LocalDate since) {
+        LocalDate from = windowStart(memberId, since);
+        Query archived = new Query();
+        if (memberId != null) archived.addCriteria(Criteria.where("memberId").is(memberId));
+        if (from != null) archived.addCriteria(Criteria.where("returnDate").gte(from));
+        return merge(hot, mongoTemplate.find(archived, Borrowing.class, BORROWINGS_ARCHIVE), Borrowing::getId);
+    }
+
+    /** As {@link #withArchivedBorrowings}, by when the hold closed (its reservation date for legacy rows). */
+    public List<Reservation> withArchivedReservations(List<Reservation> hot, String memberId, LocalDate since) {
+        LocalDate from = windowStart(memberId, since);
+        Query archived = new Query();
+        if (memberId != null) archived.addCriteria(Criteria.where("memberId").is(memberId));
+        if (from != null) {
+            archived.addCriteria(new Criteria().orOperator(
+                    Criteria.where("closedAt").gte(from.atStartOfDay()),
+                    Criteria.where("closedAt").is(null).and("reservationDate").gte(from)));
+        }
+        return merge(hot, mongoTemplate.find(archived, Reservation.class, RESERVATIONS_ARCHIVE), Reservation::getId);
+    }
+
+    private LocalDate windowStart(String memberId, LocalDate since) {
+        if (since != null) return since;
+        return memberId == null ? LocalDate.now().minusDays(listDays) : null;
+    }
+
+    /** Archived loans of a member referenced by any of its keys (business member ID or Mongo id). */
+    public List<Borrowing> findArchivedBorrowings(Collection<String> memberKeys) {
+        return mongoTemplate.find(new Query(Criteria.where("memberId").in(memberKeys)), Borrowing.class, BORROWINGS_ARCHIVE);
+    }
+
+    public List<Reservation> findArchivedReservations(Collection<String> memberKeys) {
+        return mongoTemplate.find(new Query(Criteria.where("memberId").in(memberKeys)), Reservation.class, RESERVATIONS_ARCHIVE);
+    }
+
+    public List<Borrowing> mergeBorrowings(List<Borrowing> hot, List<Borrowing> archived) {
+        return merge(hot, archived, Borrowing::getId);
+    }
+
+    public List<Reservation> mergeReservations(List<Reservation> hot, List<Reservation> archived) {
+        return merge(hot, archived, Reservation::getId);
+    }
+
+    public Optional<Borrowing> findArchivedBorrowing(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(toKey(id), Borrowing.class, BORROWINGS_ARCHIVE));
+    }
+
+    public Optional<Reservation> findArchivedReservation(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(toKey(id), Reservation.class, RESERVATIONS_ARCHIVE));
+    }
+
+    public boolean deleteArchivedBorrowing(String id) {
+        return mongoTemplate.remove(new Query(Criteria.where("_id").is(toKey(id))), BORROWINGS_ARCHIVE).getDeletedCount() > 0;
+    }
+
+    public boolean deleteArchivedReservation(String id) {
+        return mongoTemplate.remove(new Query(Criteria.where("_id").is(toKey(id))), RESERVATIONS_ARCHIVE).getDeletedCount() > 0;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("lastRunAt", lastRunAt);
+        status.put("borrowingsMoved", borrowingsMoved.get());
+        status.put("reservationsMoved", reservationsMoved.get());
+        return status;
+    }
+
+    // The hot copy wins if a record exists in both tiers (interrupted move or reopened record)
+    private static <T> List<T> merge(List<T> hot, List<T> archived, Function<T, String> idOf) {
+        if (archived.isEmpty()) return hot;
+        Set<String> hotIds = hot.stream().map(idOf).collect(Collectors.toCollection(HashSet::new));
+        List<T> merged = new ArrayList<>(hot);
+        archived.stream().filter(a -> !hotIds.contains(idOf.apply(a))).forEach(merged::add);
+        return merged;
+    }
+}
@@ -0,0 +1,185 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
+import com.management.library.BorrowingReservation.entity.Reservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Per-book calendar of when copies are taken, kept as one {@link IntervalTree} per book. Active
+ * loans occupy {@code [borrowDate, dueDate]} (overdue loans are assumed out until today) and
+ * pending holds occupy {@code [placed, holdExpiresAt]}. Built at startup and nightly from Mongo,
+ * and kept current from the circulation event stream, so availability questions never scan
+ * borrowings or reservations. Events that arrive while a rebuild is reading Mongo are applied to
+ * the live calendar and also replayed onto the new one before it is swapped in.
+ */
+@Service
+public class AvailabilityCalendar implements CirculationEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityCalendar.class);
+    private static final String LOAN = "L:";
+    private static final String HOLD = "H:";
+
+    private final MongoTemplate mongoTemplate;
+    private volatile Map<String, IntervalTree> trees = new ConcurrentHashMap<>();
+    // Events seen since the running rebuild started; null when no rebuild is running
+    private List<CirculationEvent> replay;
+
+    public AvailabilityCalendar(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Rebuilt nightly as well, so overdue loans roll forward and edits made without events are picked up. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.availability.rebuild-cron:0 5 0 * * *}")
+    public void rebuild() {
+        synchronized (this) {
+            replay = new ArrayList<>();
+        }
+        Map<String, IntervalTree> fresh = new ConcurrentHashMap<>();
+        LocalDate today = LocalDate.now();
+        try {
+            Query loans = new Query(Criteria.where("status").is("ACTIVE"));
+            loans.fields().include("bookId", "borrowDate", "dueDate");
+            try (Stream<Borrowing> stream = mongoTemplate.stream(loans, Borrowing.class)) {
+                stream.forEach(b -> addLoan(fresh, b.getId(), b.getBookId(), b.getBorrowDate(), b.getDueDate(), today));
+            }
+            Query holds = new Query(Criteria.where("status").is("PENDING"));
+            holds.fields().include("bookId", "reservationDate", "holdExpiresAt");
+            try (Stream<Reservation> stream = mongoTemplate.stream(holds, Reservation.class)) {
+                stream.forEach(r -> addHold(fresh, r.getId(), r.getBookId(), r.getReservationDate(), r.getHoldExpiresAt(), today));
+            }
+            synchronized (this) {
+                apply(fresh, replay);
+                trees = fresh;
+            }
+            log.info("Availability calendar built for {} books", fresh.size());
+        } catch (Exception e) {
+            log.warn("Could not build availability calendar: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                replay = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onEvents(List<CirculationEvent> events) {
+        if (replay != null) replay.addAll(events);
+        apply(trees, events);
+    }
+
+    private static void apply(Map<String, IntervalTree> target, List<CirculationEvent> events) {
+        LocalDate today = LocalDate.now();
+        for (CirculationEvent e : events) {
+            switch (e.getType()) {
+                case CHECKOUT -> addLoan(target, e.getBorrowingId(), e.getBookId(), e.getBorrowDate(), e.getDueDate(), today);
+                case RETURN, LOAN_DELETED -> remove(target, loanBook(e), LOAN + e.getBorrowingId());
+                case LOAN_UPDATED -> {
+                    remove(target, loanBook(e), LOAN + e.getBorrowingId());
+                    if (e.getReturnDate() == null) {
+                        addLoan(target, e.getBorrowingId(), e.getBookId(), e.getBorrowDate(), e.getDueDate(), today);
+                    }
+                }
+                case HOLD_PLACED, HOLD_ASSIGNED -> addHold(target, e.getReservationId(), e.getBookId(),
+                        e.getOccurredAt().toLocalDate(), e.getHoldExpiresAt(), today);
+                case HOLD_RECEIVED, HOLD_CANCELLED, HOLD_EXPIRED -> remove(target, e.getBookId(), HOLD + e.getReservationId());
+            }
+        }
+    }
+
+    // The book the calendar currently has the loan under
+    private static String loanBook(CirculationEvent e) {
+        return e.getPreviousBookId() != null ? e.getPreviousBookId() : e.getBookId();
+    }
+
+    /** Copies of the book out on ACTIVE loans; with the shelf count this gives the copies the library owns. */
+    public int loansOut(String bookId) {
+        IntervalTree tree = trees.get(bookId);
+        return tree != null ? tree.countWithPrefix(LOAN) : 0;
+    }
+
+    /** Whether at least one of {@code copies} copies is untaken for every day of {@code [from, to]}. */
+    public boolean isFreeBetween(String bookId, int copies, LocalDate from, LocalDate to) {
+        IntervalTree tree = trees.get(bookId);
+        if (tree == null) return true;
+        if (copies <= 1) return !tree.overlapsAny(from.toEpochDay(), to.toEpochDay());
+        return peakUsage(tree.overlapping(from.toEpochDay(), to.toEpochDay()), from.toEpochDay()) < copies;
+    }
+
+    /** First day on or after {@code from} on which fewer than {@code copies} copies are taken. */
+    public LocalDate nextFreeDate(String bookId, int copies, LocalDate from) {
+        IntervalTree tree = trees.get(bookId);
+        if (tree == null) return from;
+        if (copies <= 1) return LocalDate.ofEpochDay(tree.firstUncovered(from.toEpochDay()));
+
+        // Several copies: sweep the usage changes from the query date onwards
+        TreeMap<Long, Integer> changes = usageChanges(tree.overlapping(from.toEpochDay(), Long.MAX_VALUE - 1), from.toEpochDay());
+        int inUse = 0;
+        for (Map.Entry<Long, Integer> change : changes.entrySet()) {
+            inUse += change.getValue();
+            if (inUse < copies) return LocalDate.ofEpochDay(change.getKey());
+        }
+        return from; // not reached: usage drops to zero after the last interval ends
+    }
+
+    private static int peakUsage(List<IntervalTree.Interval> intervals, long from) {
+        int inUse = 0;
+        int peak = 0;
+        for (int delta : usageChanges(intervals, from).values()) {
+            inUse += delta;
+            peak = Math.max(peak, inUse);
+        }
+        return peak;
+    }
+
+    private static TreeMap<Long, Integer> usageChanges(List<IntervalTree.Interval> intervals, long from) {
+        TreeMap<Long, Integer> changes = new TreeMap<>();
+        changes.put(from, 0);
+        for (IntervalTree.Interval i : intervals) {
+            changes.merge(Math.max(i.start(), from), 1, Integer::sum);
+            changes.merge(i.end() + 1, -1, Integer::sum);
+        }
+        return changes;
+    }
+
+    private static void addLoan(Map<String, IntervalTree> target, String id, String bookId,
+                                LocalDate borrowDate, LocalDate dueDate, LocalDate today) {
+        if (id == null || bookId == null) return;
+        LocalDate start = borrowDate != null ? borrowDate : today;
+        LocalDate end = dueDate != null ? dueDate : start.plusDays(14);
+        if (end.isBefore(today)) end = today; // overdue: still out
+        target.computeIfAbsent(bookId, k -> new IntervalTree()).put(LOAN + id, start.toEpochDay(), end.toEpochDay());
+    }
+
+    private static void addHold(Map<String, IntervalTree> target, String id, String bookId,
+                                LocalDate placed, LocalDateTime expiresAt, LocalDate today) {
+        if (id == null || bookId == null) return;
+        LocalDate start = placed != null && placed.isAfter(today) ? placed : today;
+        LocalDate end = expiresAt != null ? expiresAt.toLocalDate() : start;
+        target.computeIfAbsent(bookId, k -> new IntervalTree()).put(HOLD + id, start.toEpochDay(), end.toEpochDay());
+    }
+
+    private static void remove(Map<String, IntervalTree> target, String bookId, String key) {
+        if (bookId == null) return;
+        IntervalTree tree = target.get(bookId);
+        if (tree != null) tree.remove(key);
+    }
+}
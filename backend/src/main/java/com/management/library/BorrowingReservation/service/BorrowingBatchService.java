@@ -0,0 +1,230 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BookManagement.repository.BookRepository;
+import com.management.library.BookManagement.service.BookService;
+import com.management.library.BorrowingReservation.dto.BatchItemResult;
+import com.management.library.BorrowingReservation.dto.CheckoutItem;
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
+import com.management.library.MemberManagement.Entity.Member;
+import com.management.library.MemberManagement.Repository.MemberRepository;
+import com.management.library.MemberManagement.Service.FineLedgerService;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Batch checkout and return for circulation desks. Each call validates all items with one
+ * {@code $in} query per collection and writes all valid items in one unordered bulk write, so a
+ * stack of scans costs a fixed number of round trips. Results are reported per item.
+ */
+@Service
+public class BorrowingBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingBatchService.class);
+    private static final int LOAN_DAYS = 14;
+
+    private final MongoTemplate mongoTemplate;
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final IdService idService;
+    private final FeeService feeService;
+    private final CirculationEventPublisher eventPublisher;
+    private final ActiveLoanRegistry loanRegistry;
+    private final FineLedgerService fineLedger;
+    private final HoldExpiryService holdExpiryService;
+    private final BookService bookService;
+
+    public BorrowingBatchService(MongoTemplate mongoTemplate, BookRepository bookRepository,
+                                 MemberRepository memberRepository, IdService idService, FeeService feeService,
+                                 CirculationEventPublisher eventPublisher, ActiveLoanRegistry loanRegistry,
+                                 FineLedgerService fineLedger, HoldExpiryService holdExpiryService,
+                                 BookService bookService) {
+        this.mongoTemplate = mongoTemplate;
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.idService = idService;
+        this.feeService = feeService;
+        this.eventPublisher = eventPublisher;
+        this.loanRegistry = loanRegistry;
+        this.fineLedger = fineLedger;
+        this.holdExpiryService = holdExpiryService;
+        this.bookService = bookService;
+    }
+
+    public List<BatchItemResult> checkout(List<CheckoutItem> items) {
+        BatchItemResult[] results = new BatchItemResult[items.size()];
+
+        Set<String> bookIds = items.stream().map(CheckoutItem::getBookId).filter(this::present).collect(Collectors.toSet());
+        Set<String> memberKeys = items.stream().map(CheckoutItem::getMemberId).filter(this::present).collect(Collectors.toSet());
+        Set<String> knownBooks = new HashSet<>();
+        bookRepository.findAllById(bookIds).forEach(b -> knownBooks.add(b.getId()));
+        Map<String, Member> members = new HashMap<>();
+        if (!memberKeys.isEmpty()) {
+            for (Member m : memberRepository.findByMemberKeys(memberKeys)) {
+                if (m.getMemberId() != null) members.put(m.getMemberId(), m);
+                members.put(m.getId(), m);
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        List<Borrowing> toInsert = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            CheckoutItem item = items.get(i);
+            String error = validateCheckout(item, knownBooks, members);
+            if (error != null) {
+                results[i] = BatchItemResult.failed(i, error);
+                continue;
+            }
+            if (!loanRegistry.tryAcquire(item.getMemberId())) {
+                results[i] = BatchItemResult.failed(i, "Borrowing limit reached for member: " + item.getMemberId());
+                continue;
+            }
+            LocalDate due = item.getDueDate() != null ? item.getDueDate() : today.plusDays(LOAN_DAYS);
+            // Ids are assigned up front so each result can carry its document
+            toInsert.add(new Borrowing(new ObjectId().toHexString(), idService.nextBorrowNumber(),
+                    item.getMemberId(), item.getBookId(), today, due, null, "ACTIVE", 0, null, 0L));
+            positions.add(i);
+        }
+
+        if (!toInsert.isEmpty()) {
+            Set<Integer> failed = execute(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Borrowing.class)
+                    .insert(toInsert));
+            for (int j = 0; j < toInsert.size(); j++) {
+                int i = positions.get(j);
+                if (failed.contains(j)) {
+                    loanRegistry.release(toInsert.get(j).getMemberId());
+                    results[i] = BatchItemResult.failed(i, "Write failed");
+                } else {
+                    results[i] = BatchItemResult.ok(i, toInsert.get(j));
+                    eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.CHECKOUT, toInsert.get(j)));
+                    bookService.adjustAvailableCopies(toInsert.get(j).getBookId(), -1);
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    public List<BatchItemResult> returnAll(List<String> borrowingIds) {
+        BatchItemResult[] results = new BatchItemResult[borrowingIds.size()];
+        Set<String> ids = borrowingIds.stream().filter(this::present).collect(Collectors.toSet());
+        Map<String, Borrowing> loans = mongoTemplate.find(new Query(Criteria.where("_id").in(ids)), Borrowing.class)
+                .stream().collect(Collectors.toMap(Borrowing::getId, b -> b));
+
+        LocalDate today = LocalDate.now();
+        String batch = new ObjectId().toHexString();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Borrowing.class);
+        List<Borrowing> toUpdate = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < borrowingIds.size(); i++) {
+            String id = borrowingIds.get(i);
+            Borrowing loan = present(id) ? loans.get(id) : null;
+            if (loan == null) {
+                results[i] = BatchItemResult.failed(i, "Borrowing not found: " + id);
+            } else if (!seen.add(id)) {
+                results[i] = BatchItemResult.failed(i, "Duplicate item in batch: " + id);
+            } else if (!"ACTIVE".equals(loan.getStatus())) {
+                results[i] = BatchItemResult.failed(i, "Borrowing is not active: " + id);
+            } else {
+                loan.setStatus("RETURNED");
+                loan.setReturnDate(today);
+                loan.setLateFee(feeService.calculateLateFee(loan.getDueDate(), today, 100));
+                loan.setReturnBatch(batch);
+                loan.setVersion(loan.getVersion() == null ? 1L : loan.getVersion() + 1);
+                // Guard on status so a concurrent return is not applied twice; the batch id marks our writes
+                ops.updateOne(new Query(Criteria.where("_id").is(id).and("status").is("ACTIVE")),
+                        new Update().set("status", "RETURNED").set("returnDate", today).set("lateFee", loan.getLateFee())
+                                .set("returnBatch", batch).inc("version", 1));
+                toUpdate.add(loan);
+                positions.add(i);
+            }
+        }
+
+        if (!toUpdate.isEmpty()) {
+            Set<String> applied = applyReturns(ops, toUpdate, batch);
+            List<Borrowing> returned = new ArrayList<>();
+            for (int j = 0; j < toUpdate.size(); j++) {
+                int i = positions.get(j);
+                Borrowing loan = toUpdate.get(j);
+                if (!applied.contains(loan.getId())) {
+                    results[i] = BatchItemResult.failed(i, "Borrowing is not active: " + loan.getId());
+                } else {
+                    results[i] = BatchItemResult.ok(i, loan);
+                    loanRegistry.release(loan.getMemberId());
+                    returned.add(loan);
+                    eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.RETURN, loan));
+                }
+            }
+            fineLedger.chargeLateFees(returned);
+            returned.stream().collect(Collectors.groupingBy(Borrowing::getBookId, Collectors.counting()))
+                    .forEach((bookId, copies) -> bookService.adjustAvailableCopies(bookId, copies.intValue()));
+            holdExpiryService.promote(returned.stream().map(Borrowing::getBookId).collect(Collectors.toSet()));
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Runs the guarded return updates and returns the ids this batch actually closed. A guard that
+     * matches nothing is not a write error, so when fewer rows matched than were sent (a concurrent
+     * return or a failed write) the batch's own rows are re-read by their batch id.
+     */
+    private Set<String> applyReturns(BulkOperations ops, List<Borrowing> toUpdate, String batch) {
+        try {
+            if (ops.execute().getMatchedCount() == toUpdate.size()) {
+                return toUpdate.stream().map(Borrowing::getId).collect(Collectors.toSet());
+            }
+        } catch (BulkOperationException e) {
+            log.warn("Batch write had {} failed operations", e.getErrors().size());
+        }
+        Query ours = new Query(Criteria.where("_id").in(toUpdate.stream().map(Borrowing::getId).toList())
+                .and("returnBatch").is(batch));
+        ours.fields().include("_id");
+        return mongoTemplate.find(ours, Borrowing.class).stream().map(Borrowing::getId).collect(Collectors.toSet());
+    }
+
+    private String validateCheckout(CheckoutItem item, Set<String> knownBooks, Map<String, Member> members) {
+        if (!present(item.getMemberId())) return "memberId is required";
+        if (!present(item.getBookId())) return "bookId is required";
+        if (!knownBooks.contains(item.getBookId())) return "Book not found: " + item.getBookId();
+        Member member = members.get(item.getMemberId());
+        if (member == null) return "Member not found: " + item.getMemberId();
+        if (member.getStatus() != null && member.getStatus() != Member.MemberStatus.ACTIVE) {
+            return "Member is " + member.getStatus();
+        }
+        return null;
+    }
+
+    /** Runs the bulk write and returns the operation indexes that failed. */
+    private Set<Integer> execute(BulkOperations ops) {
+        try {
+            ops.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            log.warn("Batch write had {} failed operations", e.getErrors().size());
+            return e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+        }
+    }
+
+    private boolean present(String value) {
+        return value != null && !value.isBlank();
+    }
+}
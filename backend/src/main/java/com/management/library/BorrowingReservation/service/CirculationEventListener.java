@@ -0,0 +1,13 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
+
+import java.util.List;
+
+/**
+ * Consumer of the circulation event stream. Called by {@link CirculationEventPublisher} on its
+ * flush thread with each batch after it has been stored, so implementations must not block long.
+ */
+public interface CirculationEventListener {
+    void onEvents(List<CirculationEvent> events);
+}
@@ -0,0 +1,160 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind publisher for the append-only circulation event log. Controllers hand events to
+ * {@link #publish} without blocking; a scheduled flush drains the bounded buffer and stores the
+ * events in the circulation_events collection with ordered bulk inserts. Every event gets its id
+ * when published, so a retried insert can never store it twice: a batch that fails part-way is
+ * kept aside and resumed from the failed event on the next flush, ahead of newer events, and a
+ * duplicate-key error just means that event was already stored.
+ */
+@Service
+public class CirculationEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationEventPublisher.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectProvider<CirculationEventListener> listeners;
+    private final BlockingQueue<CirculationEvent> buffer;
+    private final int batchSize;
+    private final AtomicLong dropped = new AtomicLong();
+    // Unwritten tail of a failed batch; always retried before anything newer is drained
+    private List<CirculationEvent> pending = List.of();
+
+    public CirculationEventPublisher(MongoTemplate mongoTemplate,
+                                     ObjectProvider<CirculationEventListener> listeners,
+                                     @Value("${app.circulation.events.buffer-size:8192}") int bufferSize,
+                                     @Value("${app.circulation.events.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.listeners = listeners;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+    }
+
+    public void publish(CirculationEvent event) {
+        if (event.getId() == null) event.setId(new ObjectId().toHexString());
+        // Never block the request thread; when the buffer is full the event is dropped and counted
+        if (!buffer.offer(event)) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("Circulation event buffer full, {} events dropped so far", count);
+            }
+        }
+    }
+
+    // Defers publishing until the surrounding transaction commits, so rolled-back writes leave no events
+    public void publishAfterCommit(CirculationEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.circulation.events.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<CirculationEvent> batch = pending;
+        pending = List.of();
+        if (batch.isEmpty()) {
+            batch = new ArrayList<>(batchSize);
+            buffer.drainTo(batch, batchSize);
+        }
+        while (!batch.isEmpty()) {
+            List<CirculationEvent> unwritten = write(batch);
+            if (!unwritten.isEmpty()) {
+                pending = unwritten;
+                return;
+            }
+            batch = new ArrayList<>(batchSize);
+            buffer.drainTo(batch, batchSize);
+        }
+    }
+
+    /** Inserts the batch in order and notifies listeners of what got stored; returns the events still unwritten. */
+    private List<CirculationEvent> write(List<CirculationEvent> batch) {
+        int from = 0;
+        while (from < batch.size()) {
+            List<CirculationEvent> rest = batch.subList(from, batch.size());
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, CirculationEvent.class).insert(rest).execute();
+                notifyListeners(rest);
+                return List.of();
+            } catch (BulkOperationException e) {
+                // Ordered: everything before the first error is stored, nothing after it was tried
+                BulkWriteError error = e.getErrors().get(0);
+                int stored = error.getIndex();
+                boolean duplicate = error.getCode() == DUPLICATE_KEY;
+                // A duplicate was stored by an earlier attempt whose outcome was lost, so it counts as written
+                notifyListeners(rest.subList(0, duplicate ? stored + 1 : stored));
+                if (!duplicate) {
+                    log.error("Failed to write {} circulation events, retrying on next flush: {}",
+                            rest.size() - stored, error.getMessage());
+                    return new ArrayList<>(rest.subList(stored, rest.size()));
+                }
+                from += stored + 1;
+            } catch (Exception e) {
+                log.error("Failed to write {} circulation events, retrying on next flush: {}", rest.size(), e.getMessage());
+                return new ArrayList<>(rest);
+            }
+        }
+        return List.of();
+    }
+
+    private void notifyListeners(List<CirculationEvent> batch) {
+        if (batch.isEmpty()) return;
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onEvents(batch);
+            } catch (Exception e) {
+                log.error("Circulation event listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        });
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("buffered", (long) buffer.size());
+        stats.put("pendingRetry", (long) pending.size());
+        stats.put("dropped", dropped.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,300 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BookManagement.entity.Book;
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
+import com.management.library.BorrowingReservation.entity.CirculationRollup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Maintains pre-aggregated daily and monthly circulation buckets (checkouts, returns, overdue
+ * returns, fees, split by genre and location) so reports never scan the borrowings collection.
+ * Buckets are incremented from each flushed batch of circulation events and can be rebuilt by
+ * {@link #backfill}, which scans the borrowings in parallel monthly slices. Both paths count a
+ * loan the same way: a checkout on its borrow date, a return on its return date, and an overdue
+ * return when it came back after the due date.
+ */
+@Service
+public class CirculationRollupService implements CirculationEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationRollupService.class);
+    public static final String DAY = "DAY";
+    public static final String MONTH = "MONTH";
+
+    private final MongoTemplate mongoTemplate;
+    private final int backfillParallelism;
+
+    public CirculationRollupService(MongoTemplate mongoTemplate,
+                                    @Value("${app.rollups.backfill-parallelism:4}") int backfillParallelism) {
+        this.mongoTemplate = mongoTemplate;
+        this.backfillParallelism = backfillParallelism;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(CirculationRollup.class).createIndex(new Index()
+                    .on("period", Sort.Direction.ASC)
+                    .on("bucketStart", Sort.Direction.ASC));
+        } catch (Exception e) {
+            log.warn("Could not create index on circulation_rollups: {}", e.getMessage());
+        }
+        // Each $or branch of a backfill slice, and the edge-month lookups, run on their own index
+        try {
+            for (String collection : loanCollections()) {
+                mongoTemplate.indexOps(collection).createIndex(new Index().on("borrowDate", Sort.Direction.ASC));
+                mongoTemplate.indexOps(collection).createIndex(new Index().on("returnDate", Sort.Direction.ASC));
+            }
+        } catch (Exception e) {
+            log.warn("Could not create loan date indexes: {}", e.getMessage());
+        }
+    }
+
+    public List<CirculationRollup> find(String period, LocalDate from, LocalDate to) {
+        Query query = new Query(Criteria.where("period").is(period).and("bucketStart").gte(from).lte(to))
+                .with(Sort.by("bucketStart"));
+        return mongoTemplate.find(query, CirculationRollup.class);
+    }
+
+    @Override
+    public void onEvents(List<CirculationEvent> events) {
+        List<CirculationEvent> loans = events.stream()
+                .filter(e -> e.getType() == CirculationEvent.Type.CHECKOUT || e.getType() == CirculationEvent.Type.RETURN)
+                .collect(Collectors.toList());
+        if (loans.isEmpty()) return;
+
+        Map<String, Book> books = loadBooks(loans.stream().map(CirculationEvent::getBookId).collect(Collectors.toSet()));
+        Map<String, Bucket> deltas = new HashMap<>();
+        for (CirculationEvent e : loans) {
+            Book book = books.get(e.getBookId());
+            LocalDate occurred = e.getOccurredAt().toLocalDate();
+            if (e.getType() == CirculationEvent.Type.CHECKOUT) {
+                addCheckout(deltas, e.getBorrowDate() != null ? e.getBorrowDate() : occurred, book);
+            } else {
+                addReturn(deltas, e.getReturnDate() != null ? e.getReturnDate() : occurred, e.getDueDate(), e.getLateFee(), book);
+            }
+        }
+
+        // One unordered bulk write of $inc upserts per flushed batch
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CirculationRollup.class);
+        deltas.values().forEach(b -> ops.upsert(new Query(Criteria.where("_id").is(b.id)), b.toIncrement()));
+        ops.execute();
+    }
+
+    /**
+     * Recomputes the buckets of the whole months covering {@code [from, to]} (either end open when
+     * null) from the borrowings collection and its archive; buckets outside the range are left as
+     * they are. Intended for the initial load or repair; increments arriving while it runs may be
+     * overwritten.
+     */
+    public synchronized Map<String, Object> backfill(LocalDate from, LocalDate to) {
+        long started = System.currentTimeMillis();
+        YearMonth first = from != null ? YearMonth.from(from) : edgeMonth(Sort.Direction.ASC);
+        YearMonth last = to != null ? YearMonth.from(to) : edgeMonth(Sort.Direction.DESC);
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (first == null || last == null || first.isAfter(last)) {
+            result.put("slices", 0);
+            result.put("buckets", 0);
+            return result;
+        }
+        Map<String, Book> books = loadBooks(null);
+
+        List<YearMonth> slices = new ArrayList<>();
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            slices.add(m);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(backfillParallelism);
+        Map<String, Bucket> totals = new HashMap<>();
+        try {
+            List<CompletableFuture<Map<String, Bucket>>> parts = slices.stream()
+                    .map(slice -> CompletableFuture.supplyAsync(() -> scanSlice(slice, books), pool))
+                    .collect(Collectors.toList());
+            for (CompletableFuture<Map<String, Bucket>> part : parts) {
+                part.join().forEach((id, bucket) -> totals.merge(id, bucket, Bucket::merge));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // Only the rebuilt months are replaced
+        mongoTemplate.remove(new Query(Criteria.where("bucketStart")
+                .gte(first.atDay(1)).lt(last.plusMonths(1).atDay(1))), CirculationRollup.class);
+        if (!totals.isEmpty()) {
+            mongoTemplate.insert(totals.values().stream().map(Bucket::toDocument).collect(Collectors.toList()), CirculationRollup.class);
+        }
+
+        result.put("from", first.atDay(1));
+        result.put("to", last.atEndOfMonth());
+        result.put("slices", slices.size());
+        result.put("buckets", totals.size());
+        result.put("elapsedMs", System.currentTimeMillis() - started);
+        log.info("Circulation rollup backfill finished: {}", result);
+        return result;
+    }
+
+    /** Checkouts borrowed and returns made within the month; a loan spanning months lands in each slice once. */
+    private Map<String, Bucket> scanSlice(YearMonth month, Map<String, Book> books) {
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.plusMonths(1).atDay(1);
+        Map<String, Bucket> buckets = new HashMap<>();
+        for (String collection : loanCollections()) {
+            Query query = new Query(new Criteria().orOperator(
+                    Criteria.where("borrowDate").gte(start).lt(end),
+                    Criteria.where("returnDate").gte(start).lt(end)));
+            query.fields().include("bookId", "borrowDate", "dueDate", "returnDate", "lateFee");
+            try (Stream<Borrowing> stream = mongoTemplate.stream(query, Borrowing.class, collection)) {
+                stream.forEach(loan -> {
+                    Book book = books.get(loan.getBookId());
+                    if (month.equals(month(loan.getBorrowDate()))) {
+                        addCheckout(buckets, loan.getBorrowDate(), book);
+                    }
+                    if (month.equals(month(loan.getReturnDate()))) {
+                        addReturn(buckets, loan.getReturnDate(), loan.getDueDate(), loan.getLateFee(), book);
+                    }
+                });
+            }
+        }
+        return buckets;
+    }
+
+    private static YearMonth month(LocalDate date) {
+        return date != null ? YearMonth.from(date) : null;
+    }
+
+    private static void addCheckout(Map<String, Bucket> buckets, LocalDate day, Book book) {
+        addTo(buckets, day, book, 1, 0, 0, 0);
+    }
+
+    private static void addReturn(Map<String, Bucket> buckets, LocalDate day, LocalDate dueDate, long lateFee, Book book) {
+        boolean late = dueDate != null && day.isAfter(dueDate);
+        addTo(buckets, day, book, 0, 1, late ? 1 : 0, lateFee);
+    }
+
+    private List<String> loanCollections() {
+        return List.of(mongoTemplate.getCollectionName(Borrowing.class), ArchivalService.BORROWINGS_ARCHIVE);
+    }
+
+    private YearMonth edgeMonth(Sort.Direction direction) {
+        LocalDate edge = null;
+        for (String collection : loanCollections()) {
+            for (String field : List.of("borrowDate", "returnDate")) {
+                Borrowing loan = mongoTemplate.findOne(new Query(Criteria.where(field).ne(null))
+                        .with(Sort.by(direction, field)), Borrowing.class, collection);
+                if (loan == null) continue;
+                LocalDate date = field.equals("borrowDate") ? loan.getBorrowDate() : loan.getReturnDate();
+                if (edge == null || (direction == Sort.Direction.ASC ? date.isBefore(edge) : date.isAfter(edge))) edge = date;
+            }
+        }
+        return month(edge);
+    }
+
+    private Map<String, Book> loadBooks(Set<String> ids) {
+        Query query = ids == null ? new Query() : new Query(Criteria.where("_id").in(ids));
+        query.fields().include("genre", "location");
+        return mongoTemplate.find(query, Book.class).stream()
+                .collect(Collectors.toMap(Book::getId, b -> b));
+    }
+
+    private static void addTo(Map<String, Bucket> buckets, LocalDate date, Book book,
+                              long checkouts, long returns, long overdue, long fees) {
+        String genre = key(book != null ? book.getGenre() : null);
+        String location = key(book != null ? book.getLocation() : null);
+        String dayId = DAY + ":" + date;
+        String monthId = MONTH + ":" + YearMonth.from(date);
+        buckets.computeIfAbsent(dayId, id -> new Bucket(id, DAY, date))
+                .add(genre, location, checkouts, returns, overdue, fees);
+        buckets.computeIfAbsent(monthId, id -> new Bucket(id, MONTH, date.withDayOfMonth(1)))
+                .add(genre, location, checkouts, returns, overdue, fees);
+    }
+
+    // Genre/location values become field names, so strip characters Mongo does not allow there
+    private static String key(String value) {
+        if (value == null || value.isBlank()) return "Unknown";
+        return value.trim().replace('.', '_').replace('$', '_');
+    }
+
+    private static final class Bucket {
+        private final String id;
+        private final String period;
+        private final LocalDate start;
+        private final CirculationRollup.Counts total = new CirculationRollup.Counts();
+        private final Map<String, CirculationRollup.Counts> byGenre = new HashMap<>();
+        private final Map<String, CirculationRollup.Counts> byLocation = new HashMap<>();
+
+        private Bucket(String id, String period, LocalDate start) {
+            this.id = id;
+            this.period = period;
+            this.start = start;
+        }
+
+        private void add(String genre, String location, long checkouts, long returns, long overdue, long fees) {
+            inc(total, checkouts, returns, overdue, fees);
+            inc(byGenre.computeIfAbsent(genre, k -> new CirculationRollup.Counts()), checkouts, returns, overdue, fees);
+            inc(byLocation.computeIfAbsent(location, k -> new CirculationRollup.Counts()), checkouts, returns, overdue, fees);
+        }
+
+        private Bucket merge(Bucket other) {
+            inc(total, other.total.getCheckouts(), other.total.getReturns(), other.total.getOverdueReturns(), other.total.getFees());
+            other.byGenre.forEach((k, c) -> inc(byGenre.computeIfAbsent(k, x -> new CirculationRollup.Counts()),
+                    c.getCheckouts(), c.getReturns(), c.getOverdueReturns(), c.getFees()));
+            other.byLocation.forEach((k, c) -> inc(byLocation.computeIfAbsent(k, x -> new CirculationRollup.Counts()),
+                    c.getCheckouts(), c.getReturns(), c.getOverdueReturns(), c.getFees()));
+            return this;
+        }
+
+        private Update toIncrement() {
+            Update update = new Update().setOnInsert("period", period).setOnInsert("bucketStart", start);
+            incFields(update, "", total);
+            byGenre.forEach((k, c) -> incFields(update, "byGenre." + k + ".", c));
+            byLocation.forEach((k, c) -> incFields(update, "byLocation." + k + ".", c));
+            return update;
+        }
+
+        private CirculationRollup toDocument() {
+            return new CirculationRollup(id, period, start, total.getCheckouts(), total.getReturns(),
+                    total.getOverdueReturns(), total.getFees(), byGenre, byLocation);
+        }
+
+        private static void incFields(Update update, String prefix, CirculationRollup.Counts c) {
+            if (c.getCheckouts() != 0) update.inc(prefix + "checkouts", c.getCheckouts());
+            if (c.getReturns() != 0) update.inc(prefix + "returns", c.getReturns());
+            if (c.getOverdueReturns() != 0) update.inc(prefix + "overdueReturns", c.getOverdueReturns());
+            if (c.getFees() != 0) update.inc(prefix + "fees", c.getFees());
+        }
+
+        private static void inc(CirculationRollup.Counts c, long checkouts, long returns, long overdue, long fees) {
+            c.setCheckouts(c.getCheckouts() + checkouts);
+            c.setReturns(c.getReturns() + returns);
+            c.setOverdueReturns(c.getOverdueReturns() + overdue);
+            c.setFees(c.getFees() + fees);
+        }
+    }
+}
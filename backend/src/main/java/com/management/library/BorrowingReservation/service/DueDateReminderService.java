@@ -0,0 +1,275 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BookManagement.entity.Book;
+import com.management.library.BookManagement.repository.BookRepository;
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.MemberManagement.Entity.Member;
+import com.management.library.MemberManagement.Repository.MemberRepository;
+import com.management.library.UserManagement.Service.EmailService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Daily due-date reminders. Reads ACTIVE borrowings due within the next N days in short keyset pages
+ * ordered by member, walked in index order on (status, memberId, dueDate), groups them into one
+ * digest per member and sends the digests with bounded parallelism and a global send rate limit.
+ * Runs happen on their own thread, so a long, throttled run never holds up other scheduled jobs.
+ */
+@Service
+public class DueDateReminderService {
+
+    private static final Logger log = LoggerFactory.getLogger(DueDateReminderService.class);
+    private static final int MEMBER_CHUNK = 200;
+    // Each page is a separate query, so no cursor sits idle while the senders throttle the scan
+    private static final int PAGE_SIZE = 1000;
+    private static final String SUBJECT = "SARASAVI Library - Books due soon";
+    // Superseded: it could not supply the member order the pages are read in
+    private static final String OLD_INDEX = "status_1_dueDate_1_memberId_1";
+
+    private final MongoTemplate mongoTemplate;
+    private final MemberRepository memberRepository;
+    private final BookRepository bookRepository;
+    private final EmailService emailService;
+    private final int daysAhead;
+    private final long sendIntervalNanos;
+    private final int sendGroupSize;
+    private final ThreadPoolExecutor senders;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "due-date-reminders");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong nextSendAt = new AtomicLong(System.nanoTime());
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private final AtomicLong loansScanned = new AtomicLong();
+    private final AtomicLong digestsQueued = new AtomicLong();
+    private final AtomicLong emailsSent = new AtomicLong();
+    private final AtomicLong emailsFailed = new AtomicLong();
+
+    public DueDateReminderService(MongoTemplate mongoTemplate, MemberRepository memberRepository,
+                                  BookRepository bookRepository, EmailService emailService,
+                                  @Value("${app.reminders.days-ahead:3}") int daysAhead,
+                                  @Value("${app.reminders.parallelism:4}") int parallelism,
+                                  @Value("${app.reminders.max-per-second:10}") int maxPerSecond) {
+        this.mongoTemplate = mongoTemplate;
+        this.memberRepository = memberRepository;
+        this.bookRepository = bookRepository;
+        this.emailService = emailService;
+        this.daysAhead = daysAhead;
+        this.sendIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxPerSecond);
+        this.sendGroupSize = Math.max(1, maxPerSecond);
+        // Bounded queue + caller-runs keeps the streaming cursor from racing ahead of the senders
+        this.senders = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            // Equality on status, then the (memberId, dueDate) sort, so no page needs an in-memory sort
+            mongoTemplate.indexOps(Borrowing.class).createIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("memberId", Sort.Direction.ASC)
+                    .on("dueDate", Sort.Direction.ASC));
+        } catch (Exception e) {
+            log.warn("Could not create due-date index on borrowings: {}", e.getMessage());
+        }
+        try {
+            if (mongoTemplate.indexOps(Borrowing.class).getIndexInfo().stream().anyMatch(i -> OLD_INDEX.equals(i.getName()))) {
+                mongoTemplate.indexOps(Borrowing.class).dropIndex(OLD_INDEX);
+            }
+        } catch (Exception e) {
+            log.warn("Could not drop old due-date index on borrowings: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.reminders.cron:0 0 8 * * *}")
+    public void runDaily() {
+        runner.execute(this::run);
+    }
+
+    /** Starts a pass on the reminder thread, as the schedule does; returns false if one is already running. */
+    public boolean start() {
+        if (running.get()) return false;
+        runner.execute(this::run);
+        return true;
+    }
+
+    /** Runs one reminder pass; returns false if a run is already in progress. */
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            resetProgress();
+            LocalDate today = LocalDate.now();
+            Map<String, List<Borrowing>> chunk = new LinkedHashMap<>();
+            String after = null;
+            while (true) {
+                Criteria due = Criteria.where("status").is("ACTIVE").and("dueDate").gte(today).lte(today.plusDays(daysAhead));
+                due = after != null ? due.and("memberId").gt(after) : due.and("memberId").ne(null);
+                Query page = new Query(due).with(Sort.by("memberId", "dueDate")).limit(PAGE_SIZE);
+                page.fields().include("memberId", "bookId", "dueDate");
+                List<Borrowing> loans = mongoTemplate.find(page, Borrowing.class);
+                if (loans.isEmpty()) break;
+
+                boolean full = loans.size() == PAGE_SIZE;
+                String last = loans.get(loans.size() - 1).getMemberId();
+                // A full page may end part-way through its last member; that member starts the next page
+                boolean splitLast = full && !last.equals(loans.get(0).getMemberId());
+                for (Borrowing loan : loans) {
+                    if (splitLast && loan.getMemberId().equals(last)) break;
+                    // Sorted by member, so a member's loans are contiguous and a new key closes the previous digest
+                    if (!chunk.containsKey(loan.getMemberId()) && chunk.size() >= MEMBER_CHUNK) {
+                        dispatch(chunk);
+                        chunk = new LinkedHashMap<>();
+                    }
+                    chunk.computeIfAbsent(loan.getMemberId(), k -> new ArrayList<>()).add(loan);
+                    after = loan.getMemberId();
+                    if (loansScanned.incrementAndGet() % 10_000 == 0) {
+                        log.info("Reminder run progress: {}", getStatus());
+                    }
+                }
+                if (!full) break;
+            }
+            if (!chunk.isEmpty()) dispatch(chunk);
+            awaitSenders();
+            log.info("Reminder run finished: {}", getStatus());
+        } catch (Exception e) {
+            log.error("Reminder run failed: {}", e.getMessage(), e);
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("loansScanned", loansScanned.get());
+        status.put("digestsQueued", digestsQueued.get());
+        status.put("emailsSent", emailsSent.get());
+        status.put("emailsFailed", emailsFailed.get());
+        status.put("pendingSends", senders.getQueue().size() + senders.getActiveCount());
+        return status;
+    }
+
+    private void dispatch(Map<String, List<Borrowing>> loansByMember) {
+        // One member lookup and one book lookup per chunk of digests
+        Map<String, Member> members = new HashMap<>();
+        for (Member m : memberRepository.findByMemberKeys(loansByMember.keySet())) {
+            members.put(m.getMemberId(), m);
+            members.put(m.getId(), m);
+        }
+        Set<String> bookIds = loansByMember.values().stream()
+                .flatMap(List::stream).map(Borrowing::getBookId).collect(Collectors.toSet());
+        Map<String, String> titles = new HashMap<>();
+        for (Book b : bookRepository.findAllById(bookIds)) {
+            titles.put(b.getId(), b.getTitle());
+        }
+
+        List<EmailService.SimpleEmail> digests = new ArrayList<>();
+        loansByMember.forEach((memberKey, loans) -> {
+            Member member = members.get(memberKey);
+            if (member == null || member.getEmail() == null || member.getEmail().isBlank()) return;
+            digests.add(new EmailService.SimpleEmail(member.getEmail(), SUBJECT, renderDigest(member, loans, titles)));
+        });
+        if (digests.isEmpty()) return;
+        digestsQueued.addAndGet(digests.size());
+        // The whole chunk goes out as one bulk send so SMTP sessions are reused across digests
+        senders.execute(() -> send(digests));
+    }
+
+    // A chunk goes out in groups of at most one second's budget, each waiting for its own slots,
+    // so a large chunk can never burst past max-per-second
+    private void send(List<EmailService.SimpleEmail> digests) {
+        for (int from = 0; from < digests.size(); from += sendGroupSize) {
+            List<EmailService.SimpleEmail> group = digests.subList(from, Math.min(from + sendGroupSize, digests.size()));
+            acquireSendSlots(group.size());
+            try {
+                EmailService.BulkResult result = emailService.sendSimpleEmails(group);
+                emailsSent.addAndGet(result.sent());
+                emailsFailed.addAndGet(result.failed());
+            } catch (Exception e) {
+                emailsFailed.addAndGet(group.size());
+                log.warn("Failed to send {} due-date reminders: {}", group.size(), e.getMessage());
+            }
+        }
+    }
+
+    // Spaces sends evenly so the whole pool stays under max-per-second; a batch books one slot per message
+    private void acquireSendSlots(int count) {
+        long slot = nextSendAt.getAndUpdate(prev -> Math.max(prev, System.nanoTime()) + sendIntervalNanos * count);
+        long wait = slot - System.nanoTime();
+        if (wait > 0) LockSupport.parkNanos(wait);
+    }
+
+    private String renderDigest(Member member, List<Borrowing> loans, Map<String, String> titles) {
+        StringBuilder body = new StringBuilder(256);
+        body.append("Hello ").append(member.getFirstName()).append(",\n\n");
+        body.append("The following books are due back soon:\n\n");
+        for (Borrowing loan : loans) {
+            body.append(" - ").append(titles.getOrDefault(loan.getBookId(), loan.getBookId()))
+                    .append(" (due ").append(loan.getDueDate()).append(")\n");
+        }
+        body.append("\nPlease return or renew them on time to avoid late fees.\n\n");
+        body.append("Best regards,\nSARASAVI Library Team");
+        return body.toString();
+    }
+
+    private void awaitSenders() throws InterruptedException {
+        while (senders.getActiveCount() > 0 || !senders.getQueue().isEmpty()) {
+            Thread.sleep(200);
+        }
+    }
+
+    private void resetProgress() {
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        loansScanned.set(0);
+        digestsQueued.set(0);
+        emailsSent.set(0);
+        emailsFailed.set(0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        senders.shutdown();
+    }
+}
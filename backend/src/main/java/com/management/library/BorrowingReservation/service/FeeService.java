@@ -12,7 +12,7 @@ public class FeeService {
         LocalDate end = returnDateOrNull != null ? returnDateOrNull : LocalDate.now();
         if (!end.isAfter(dueDate)) return 0;
         long daysLate = ChronoUnit.DAYS.between(dueDate, end);
-        long weeksLate = (long) Math.ceil(daysLate / 7.0);
+        long weeksLate = (daysLate + 6) / 7; // whole weeks, rounded up
         return (int) (weeksLate * weeklyFee);
     }
 }
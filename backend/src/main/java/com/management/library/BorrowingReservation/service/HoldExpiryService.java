@@ -0,0 +1,213 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BookManagement.entity.Book;
+import com.management.library.BookManagement.repository.BookRepository;
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
+import com.management.library.BorrowingReservation.entity.Reservation;
+import com.management.library.MemberManagement.Entity.Member;
+import com.management.library.MemberManagement.Repository.MemberRepository;
+import com.management.library.UserManagement.Service.EmailOutboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Assigns free copies to PENDING reservations and expires the ones that are not picked up in time.
+ * A hold waits in the queue without a deadline; its pickup window ({@code holdExpiresAt}) starts only
+ * when {@link #promote} finds a free copy that is not already assigned to an earlier hold. Deadlines
+ * are kept in an in-memory {@link TimingWheel} rebuilt from Mongo at startup, so expiry needs no
+ * polling queries; each tick cancels the expired holds in bulk and passes their copies on.
+ */
+@Service
+public class HoldExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpiryService.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final MemberRepository memberRepository;
+    private final BookRepository bookRepository;
+    private final EmailOutboxService emailOutbox;
+    private final CirculationEventPublisher eventPublisher;
+    private final TimingWheel wheel;
+    private final int holdDays;
+
+    public HoldExpiryService(MongoTemplate mongoTemplate, MemberRepository memberRepository,
+                             BookRepository bookRepository, EmailOutboxService emailOutbox,
+                             CirculationEventPublisher eventPublisher,
+                             @Value("${app.reservation.hold-days:7}") int holdDays,
+                             @Value("${app.reservation.expiry.tick-ms:60000}") long tickMillis,
+                             @Value("${app.reservation.expiry.wheel-size:4096}") int wheelSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.memberRepository = memberRepository;
+        this.bookRepository = bookRepository;
+        this.emailOutbox = emailOutbox;
+        this.eventPublisher = eventPublisher;
+        this.holdDays = holdDays;
+        this.wheel = new TimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    public LocalDateTime defaultDeadline() {
+        return LocalDateTime.now().plusDays(holdDays);
+    }
+
+    /** Schedules expiry for a PENDING hold that already has a copy assigned; queued holds are ignored. */
+    public void track(Reservation reservation) {
+        if ("PENDING".equals(reservation.getStatus()) && reservation.getId() != null
+                && reservation.getHoldExpiresAt() != null) {
+            wheel.schedule(reservation.getId(), toMillis(reservation.getHoldExpiresAt()));
+        }
+    }
+
+    public void untrack(String reservationId) {
+        wheel.cancel(reservationId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // Holds without a deadline (queued, or placed before expiry existed) have no copy to release
+        Query pending = new Query(Criteria.where("status").is("PENDING").and("holdExpiresAt").ne(null));
+        pending.fields().include("holdExpiresAt", "status");
+        try (Stream<Reservation> stream = mongoTemplate.stream(pending, Reservation.class)) {
+            stream.forEach(this::track);
+            log.info("Hold expiry wheel rebuilt with {} pending reservations", wheel.size());
+        } catch (Exception e) {
+            log.warn("Could not rebuild hold expiry wheel: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservation.expiry.tick-ms:60000}")
+    public void tick() {
+        List<String> expired = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < expired.size(); from += BATCH_SIZE) {
+            List<String> batch = expired.subList(from, Math.min(from + BATCH_SIZE, expired.size()));
+            try {
+                expire(batch);
+            } catch (Exception e) {
+                log.error("Failed to expire {} holds: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void expire(List<String> ids) {
+        Query stillPending = new Query(Criteria.where("_id").in(ids).and("status").is("PENDING"));
+        List<Reservation> holds = mongoTemplate.find(stillPending, Reservation.class);
+        if (holds.isEmpty()) return;
+
+        mongoTemplate.updateMulti(stillPending, new Update().set("status", "CANCELLED").set("closedAt", LocalDateTime.now())
+                .inc("version", 1), Reservation.class);
+        holds.forEach(r -> eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.HOLD_EXPIRED, r)));
+        log.info("Expired {} uncollected holds", holds.size());
+
+        promote(holds.stream().map(Reservation::getBookId).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Hands free copies of the given books to the oldest queued holds and emails those patrons. A
+     * book's {@code availableCopies} is its count of copies on the shelf (checkouts take it down,
+     * returns put it back), so the copies free for queued holds are those not already assigned to
+     * an earlier hold. Call after anything that releases a copy: a return, a deleted loan, or a
+     * hold that expires, is cancelled or is deleted.
+     */
+    public void promote(String bookId) {
+        promote(Collections.singletonList(bookId));
+    }
+
+    public void promote(Collection<String> bookIds) {
+        Set<String> books = bookIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (books.isEmpty()) return;
+
+        Map<String, Book> catalog = new HashMap<>();
+        List<Reservation> assignedNow = assign(books, catalog);
+        if (assignedNow.isEmpty()) return;
+        log.info("Assigned copies to {} queued holds", assignedNow.size());
+        assignedNow.forEach(r -> eventPublisher.publish(CirculationEvent.of(CirculationEvent.Type.HOLD_ASSIGNED, r)));
+        // Outside the lock: notices go through the outbox, so a slow mail server never holds up circulation
+        notifyAssigned(assignedNow, catalog);
+    }
+
+    private synchronized List<Reservation> assign(Set<String> books, Map<String, Book> catalog) {
+        bookRepository.findAllById(books).forEach(b -> catalog.put(b.getId(), b));
+        List<Reservation> next = new ArrayList<>();
+        for (Book book : catalog.values()) {
+            int copies = book.getAvailableCopies() != null ? book.getAvailableCopies() : 0;
+            long assigned = mongoTemplate.count(new Query(Criteria.where("bookId").is(book.getId())
+                    .and("status").is("PENDING").and("holdExpiresAt").ne(null)), Reservation.class);
+            long free = copies - assigned;
+            if (free <= 0) continue;
+
+            Query queued = new Query(Criteria.where("bookId").is(book.getId())
+                    .and("status").is("PENDING").and("holdExpiresAt").is(null))
+                    .with(Sort.by("reservationDate", "_id"))
+                    .limit((int) Math.min(free, BATCH_SIZE));
+            next.addAll(mongoTemplate.find(queued, Reservation.class));
+        }
+        if (next.isEmpty()) return List.of();
+
+        // The pickup window starts now; the guard skips holds assigned or closed in the meantime
+        LocalDateTime deadline = defaultDeadline();
+        List<Reservation> assignedNow = new ArrayList<>(next.size());
+        for (Reservation r : next) {
+            Query unassigned = new Query(Criteria.where("_id").is(r.getId())
+                    .and("status").is("PENDING").and("holdExpiresAt").is(null));
+            if (mongoTemplate.updateFirst(unassigned, new Update().set("holdExpiresAt", deadline).inc("version", 1),
+                    Reservation.class).getModifiedCount() == 1) {
+                wheel.schedule(r.getId(), toMillis(deadline));
+                r.setHoldExpiresAt(deadline);
+                assignedNow.add(r);
+            }
+        }
+        return assignedNow;
+    }
+
+    private void notifyAssigned(List<Reservation> assignedNow, Map<String, Book> catalog) {
+        Map<String, Member> members = new HashMap<>();
+        for (Member m : memberRepository.findByMemberKeys(assignedNow.stream().map(Reservation::getMemberId).collect(Collectors.toSet()))) {
+            members.put(m.getMemberId(), m);
+            members.put(m.getId(), m);
+        }
+
+        for (Reservation r : assignedNow) {
+            Member member = members.get(r.getMemberId());
+            if (member == null || member.getEmail() == null || member.getEmail().isBlank()) continue;
+            Book book = catalog.get(r.getBookId());
+            try {
+                emailOutbox.enqueueSimple("HOLD_READY:" + r.getId(), member.getEmail(),
+                        "SARASAVI Library - Your reserved book is available",
+                        "Hello " + member.getFirstName() + ",\n\n" +
+                                "Good news! \"" + (book != null ? book.getTitle() : r.getBookId()) + "\" is now available for you.\n\n" +
+                                "Please collect it within " + holdDays + " days, otherwise your reservation will be released to the next member.\n\n" +
+                                "Best regards,\n" +
+                                "SARASAVI Library Team");
+            } catch (Exception e) {
+                log.warn("Failed to queue hold notice for member {}: {}", r.getMemberId(), e.getMessage());
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
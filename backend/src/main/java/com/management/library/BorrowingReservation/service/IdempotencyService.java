@@ -0,0 +1,205 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.library.BorrowingReservation.entity.IdempotencyRecord;
+import com.management.library.UserManagement.Exception.DuplicateResourceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Replays stored responses for repeated Idempotency-Key headers. Completed responses live in a
+ * bounded in-memory LRU in front of the TTL-indexed idempotency_keys collection; concurrent
+ * requests carrying the same key on this instance wait for the first one instead of running again.
+ * Each key is bound to a fingerprint of its request body, so reusing a key for a different request
+ * is rejected, and a claim is held under a lease, so a crash mid-request does not block the key
+ * until the record expires.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Map<String, CachedResponse> cache;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.lease-seconds:30}") long leaseSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(IdempotencyRecord.class)
+                    .createIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(ttl));
+        } catch (Exception e) {
+            log.warn("Could not create TTL index on idempotency_keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs {@code action} once per (scope, key) and returns the stored response for repeats.
+     * Without a key the action simply runs.
+     *
+     * @param request the request body; a repeat must carry the same body as the first use of the key
+     * @throws IllegalArgumentException if the key was already used with a different request body
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        CachedResponse cached = cache.get(id);
+        if (cached != null && !cached.isExpired(ttl)) {
+            checkFingerprint(cached.fingerprint, fingerprint);
+            return read(cached.body, type);
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            // Coalesce: another request with this key is being processed on this instance
+            try {
+                String body = running.join();
+                CachedResponse first = cache.get(id);
+                if (first != null) checkFingerprint(first.fingerprint, fingerprint);
+                return read(body, type);
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            String body = claimAndRun(id, fingerprint, action);
+            cache.put(id, new CachedResponse(body, fingerprint, System.currentTimeMillis()));
+            mine.complete(body);
+            return read(body, type);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private <T> String claimAndRun(String id, String fingerprint, Supplier<T> action) {
+        Date now = new Date();
+        Date leaseEnd = new Date(now.getTime() + lease.toMillis());
+        try {
+            mongoTemplate.insert(new IdempotencyRecord(id, false, null, fingerprint, leaseEnd, now));
+        } catch (DuplicateKeyException e) {
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existing != null) checkFingerprint(existing.getFingerprint(), fingerprint);
+            if (existing != null && existing.isCompleted()) {
+                return existing.getResponse();
+            }
+            // The previous claimant died without completing or releasing; take over its expired lease
+            boolean takenOver = mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(id).and("completed").is(false).and("lockedUntil").lt(now)),
+                    new Update().set("lockedUntil", leaseEnd),
+                    IdempotencyRecord.class).getModifiedCount() == 1;
+            if (!takenOver) {
+                throw new DuplicateResourceException("A request with this Idempotency-Key is already being processed");
+            }
+        }
+
+        String body;
+        try {
+            body = write(action.get());
+        } catch (RuntimeException e) {
+            // Release the claim so the client can retry the failed request
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(id)), IdempotencyRecord.class);
+            throw e;
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)),
+                new Update().set("completed", true).set("response", body).unset("lockedUntil"),
+                IdempotencyRecord.class);
+        return body;
+    }
+
+    private static void checkFingerprint(String stored, String fingerprint) {
+        // Records written before fingerprints existed carry none and are accepted
+        if (stored != null && !stored.equals(fingerprint)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used with a different request body");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint request for idempotency", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response for idempotent replay", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private record CachedResponse(String body, String fingerprint, long storedAt) {
+        boolean isExpired(Duration ttl) {
+            return System.currentTimeMillis() - storedAt > ttl.toMillis();
+        }
+    }
+}
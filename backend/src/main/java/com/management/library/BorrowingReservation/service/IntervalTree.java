@@ -0,0 +1,187 @@
+package com.management.library.BorrowingReservation.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AVL tree of closed intervals ordered by start, where each node also stores the largest end in
+ * its subtree. That augmentation lets "does anything overlap [from, to]" and "find an interval
+ * covering t" prune whole subtrees, so they run in O(log n). Intervals are addressed by id so
+ * they can be replaced or removed.
+ */
+public class IntervalTree {
+
+    public record Interval(String id, long start, long end) {
+    }
+
+    private static final class Node {
+        final Interval interval;
+        long maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+
+    private final Map<String, Node> byId = new HashMap<>();
+    private Node root;
+
+    /** Adds or replaces the interval {@code [start, end]} stored under {@code id}. */
+    public synchronized void put(String id, long start, long end) {
+        removeNode(id);
+        Node node = new Node(new Interval(id, start, Math.max(start, end)));
+        root = insert(root, node);
+        byId.put(id, node);
+    }
+
+    public synchronized boolean remove(String id) {
+        return removeNode(id);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /** Number of intervals whose id starts with {@code prefix}. */
+    public synchronized int countWithPrefix(String prefix) {
+        return (int) byId.keySet().stream().filter(id -> id.startsWith(prefix)).count();
+    }
+
+    public synchronized boolean overlapsAny(long from, long to) {
+        return findOverlap(from, to) != null;
+    }
+
+    /** Earliest point at or after {@code from} not covered by any interval. */
+    public synchronized long firstUncovered(long from) {
+        long t = from;
+        Interval covering;
+        // Each hop jumps past the end of a covering interval
+        while ((covering = findOverlap(t, t)) != null) {
+            t = covering.end() + 1;
+        }
+        return t;
+    }
+
+    /** All intervals overlapping {@code [from, to]}, ordered by start. */
+    public synchronized List<Interval> overlapping(long from, long to) {
+        List<Interval> out = new ArrayList<>();
+        collect(root, from, to, out);
+        return out;
+    }
+
+    private Interval findOverlap(long from, long to) {
+        Node node = root;
+        while (node != null) {
+            if (node.interval.start() <= to && node.interval.end() >= from) return node.interval;
+            // If the left subtree reaches far enough but holds no overlap, nothing to the right can either
+            node = node.left != null && node.left.maxEnd >= from ? node.left : node.right;
+        }
+        return null;
+    }
+
+    private void collect(Node node, long from, long to, List<Interval> out) {
+        if (node == null || node.maxEnd < from) return;
+        collect(node.left, from, to, out);
+        if (node.interval.start() <= to) {
+            if (node.interval.end() >= from) out.add(node.interval);
+            collect(node.right, from, to, out);
+        }
+    }
+
+    private boolean removeNode(String id) {
+        Node node = byId.remove(id);
+        if (node == null) return false;
+        root = delete(root, node.interval);
+        return true;
+    }
+
+    private static int compare(Interval a, Interval b) {
+        int c = Long.compare(a.start(), b.start());
+        return c != 0 ? c : a.id().compareTo(b.id());
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (compare(added.interval, node.interval) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, Interval target) {
+        if (node == null) return null;
+        int c = compare(target, node.interval);
+        if (c < 0) {
+            node.left = delete(node.left, target);
+        } else if (c > 0) {
+            node.right = delete(node.right, target);
+        } else {
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            Node successor = node.right;
+            while (successor.left != null) successor = successor.left;
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) return node.right;
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node y) {
+        Node x = y.left;
+        y.left = x.right;
+        x.right = y;
+        update(y);
+        update(x);
+        return x;
+    }
+
+    private Node rotateLeft(Node x) {
+        Node y = x.right;
+        x.right = y.left;
+        y.left = x;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long max = node.interval.end();
+        if (node.left != null) max = Math.max(max, node.left.maxEnd);
+        if (node.right != null) max = Math.max(max, node.right.maxEnd);
+        node.maxEnd = max;
+    }
+}
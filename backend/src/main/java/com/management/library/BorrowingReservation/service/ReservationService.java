@@ -0,0 +1,112 @@
+package com.management.library.BorrowingReservation.service;
+
+import com.management.library.BookManagement.service.BookService;
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.CirculationEvent;
+import com.management.library.BorrowingReservation.entity.Reservation;
+import com.management.library.UserManagement.Exception.BorrowingLimitExceededException;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Service
+public class ReservationService {
+    private final MongoTemplate mongoTemplate;
+    private final IdService idService;
+    private final CirculationEventPublisher eventPublisher;
+    private final ActiveLoanRegistry loanRegistry;
+    private final BookService bookService;
+
+    public ReservationService(MongoTemplate mongoTemplate, IdService idService, CirculationEventPublisher eventPublisher,
+                              ActiveLoanRegistry loanRegistry, BookService bookService) {
+        this.mongoTemplate = mongoTemplate;
+        this.idService = idService;
+        this.eventPublisher = eventPublisher;
+        this.loanRegistry = loanRegistry;
+        this.bookService = bookService;
+    }
+
+    /**
+     * Marks a PENDING reservation as RECEIVED, opens an ACTIVE borrowing for it (unless one already
+     * exists for the same member and book) and cancels the member's duplicate holds on that book.
+     * Runs in one transaction: findAndModify, upsert and updateMulti, plus the shelf count when a loan is opened.
+     *
+     * @return the received reservation, or empty if no reservation exists with this id
+     * @throws IllegalStateException if the reservation is not PENDING
+     * @throws BorrowingLimitExceededException if the new loan would exceed the member's limit
+     */
+    @Transactional
+    public Optional<Reservation> receive(String id) {
+        // Claim the reservation only if it is still PENDING (status may be unset on legacy records)
+        Query pending = new Query(Criteria.where("_id").is(id).and("status").in("PENDING", null));
+        Reservation received = mongoTemplate.findAndModify(
+                pending,
+                new Update().set("status", "RECEIVED").set("closedAt", LocalDateTime.now()).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Reservation.class);
+
+        if (received == null) {
+            // Failure path only: tell "not found" apart from "not pending"
+            if (!mongoTemplate.exists(new Query(Criteria.where("_id").is(id)), Reservation.class)) {
+                return Optional.empty();
+            }
+            throw new IllegalStateException("Reservation is not pending: " + id);
+        }
+
+        // Create the borrowing unless an ACTIVE one already exists for this member-book pair
+        LocalDate borrowDate = LocalDate.now();
+        Query activeLoan = new Query(Criteria.where("memberId").is(received.getMemberId())
+                .and("bookId").is(received.getBookId())
+                .and("status").is("ACTIVE"));
+        String borrowingNumber = idService.nextBorrowNumber();
+        Update newLoan = new Update()
+                .setOnInsert("borrowingNumber", borrowingNumber)
+                .setOnInsert("borrowDate", borrowDate)
+                .setOnInsert("dueDate", borrowDate.plusDays(14))
+                .setOnInsert("returnDate", null)
+                .setOnInsert("lateFee", 0)
+                .setOnInsert("version", 0L);
+        UpdateResult loan = mongoTemplate.upsert(activeLoan, newLoan, Borrowing.class);
+        if (loan.getUpsertedId() != null) {
+            // Throwing rolls back the receive and the new loan together
+            if (!loanRegistry.tryAcquire(received.getMemberId())) {
+                throw new BorrowingLimitExceededException("Borrowing limit reached for member: " + received.getMemberId());
+            }
+            loanRegistry.releaseOnRollback(received.getMemberId());
+            // The held copy leaves the shelf with the loan, in the same transaction
+            bookService.adjustAvailableCopies(received.getBookId(), -1);
+        }
+
+        // Auto-cancel other PENDING reservations for the same member and book in one write
+        Query duplicates = new Query(Criteria.where("memberId").is(received.getMemberId())
+                .and("bookId").is(received.getBookId())
+                .and("status").is("PENDING")
+                .and("_id").ne(received.getId()));
+        mongoTemplate.updateMulti(duplicates, new Update().set("status", "CANCELLED").set("closedAt", LocalDateTime.now())
+                .inc("version", 1), Reservation.class);
+
+        eventPublisher.publishAfterCommit(CirculationEvent.of(CirculationEvent.Type.HOLD_RECEIVED, received));
+        if (loan.getUpsertedId() != null) {
+            Borrowing borrowing = new Borrowing();
+            borrowing.setId(loan.getUpsertedId().asObjectId().getValue().toHexString());
+            borrowing.setBorrowingNumber(borrowingNumber);
+            borrowing.setMemberId(received.getMemberId());
+            borrowing.setBookId(received.getBookId());
+            borrowing.setBorrowDate(borrowDate);
+            borrowing.setDueDate(borrowDate.plusDays(14));
+            borrowing.setStatus("ACTIVE");
+            eventPublisher.publishAfterCommit(CirculationEvent.of(CirculationEvent.Type.CHECKOUT, borrowing));
+        }
+
+        return Optional.of(received);
+    }
+}
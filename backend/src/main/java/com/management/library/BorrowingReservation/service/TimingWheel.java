@@ -0,0 +1,95 @@
+package com.management.library.BorrowingReservation.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel: O(1) schedule and cancel, and each tick only visits one bucket. Deadlines
+ * further away than one revolution stay in their bucket until their tick comes around again.
+ */
+public class TimingWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Entry>> buckets;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /** Schedules (or reschedules) {@code id} to expire at {@code deadlineMillis}. */
+    public synchronized void schedule(String id, long deadlineMillis) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        // Deadlines already in the past fire on the next tick
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        Entry entry = new Entry(id, tick);
+        entries.put(id, entry);
+        buckets.get((int) (tick & mask)).add(entry);
+    }
+
+    public synchronized void cancel(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            entry.cancelled = true; // removed lazily when its bucket is next visited
+        }
+    }
+
+    /** Advances the wheel to {@code nowMillis} and returns the ids whose deadline has passed. */
+    public synchronized List<String> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<String> expired = new ArrayList<>();
+        // After a long pause one full revolution is enough to visit every bucket
+        long ticks = Math.min(targetTick - currentTick, buckets.size());
+        for (long i = 1; i <= ticks; i++) {
+            List<Entry> bucket = buckets.get((int) ((currentTick + i) & mask));
+            int kept = 0;
+            for (Entry entry : bucket) {
+                if (entry.cancelled) {
+                    continue;
+                }
+                if (entry.deadlineTick <= targetTick) {
+                    entries.remove(entry.id);
+                    expired.add(entry.id);
+                } else {
+                    bucket.set(kept++, entry);
+                }
+            }
+            bucket.subList(kept, bucket.size()).clear();
+        }
+        if (targetTick > currentTick) {
+            currentTick = targetTick;
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final long deadlineTick;
+        private boolean cancelled;
+
+        private Entry(String id, long deadlineTick) {
+            this.id = id;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
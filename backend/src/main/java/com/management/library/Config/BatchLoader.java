@@ -0,0 +1,159 @@
+package com.management.library.Config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * DataLoader-style multi-get. Ids are answered from a small TTL cache first; misses from all
+ * callers arriving within one short window are collected and fetched together with a single
+ * call to {@code fetcher} (one $in query), and an id already being fetched is shared rather
+ * than requested again. Services call {@link #invalidate} after a write; a fetch that was
+ * already running when an id was invalidated is not cached, since it may predate the write.
+ */
+public class BatchLoader<V> {
+
+    private final Function<Set<String>, Map<String, V>> fetcher;
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final long ttlMillis;
+    private final int cacheSize;
+
+    private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Cached<V>> cache;
+    // An id can be queued twice when it is invalidated mid-window; each waiter is completed
+    private List<Map.Entry<String, CompletableFuture<V>>> queued = new ArrayList<>();
+    // Bumped on every invalidation so a fetch racing a write never repopulates the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    private record Cached<V>(V value, long storedAt) {
+    }
+
+    public BatchLoader(Function<Set<String>, Map<String, V>> fetcher, ScheduledExecutorService scheduler,
+                       long windowMillis, long ttlMillis, int cacheSize) {
+        this.fetcher = fetcher;
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.ttlMillis = ttlMillis;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached<V>> eldest) {
+                return size() > BatchLoader.this.cacheSize;
+            }
+        };
+    }
+
+    /** Resolves the given ids; ids that do not exist are absent from the result. */
+    public CompletableFuture<Map<String, V>> loadMany(Collection<String> ids) {
+        Map<String, V> hits = new LinkedHashMap<>();
+        Map<String, CompletableFuture<V>> waiting = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (String id : new HashSet<>(ids)) {
+            Cached<V> cached = cached(id, now);
+            if (cached != null) {
+                hits.put(id, cached.value());
+            } else {
+                waiting.put(id, enqueue(id));
+            }
+        }
+        if (waiting.isEmpty()) return CompletableFuture.completedFuture(hits);
+
+        return CompletableFuture.allOf(waiting.values().toArray(new CompletableFuture[0])).thenApply(done -> {
+            waiting.forEach((id, f) -> {
+                V value = f.join();
+                if (value != null) hits.put(id, value);
+            });
+            return hits;
+        });
+    }
+
+    /** Blocking form of {@link #loadMany} returning hits in the order the ids were given. */
+    public List<V> getAll(List<String> ids) {
+        Map<String, V> found;
+        try {
+            found = loadMany(ids).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+        return ids.stream().distinct().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    public void invalidate(String id) {
+        if (id == null) return;
+        generation.incrementAndGet();
+        synchronized (cache) {
+            cache.remove(id);
+        }
+        // Later callers start a fresh fetch instead of joining one that may have read the old value
+        inFlight.remove(id);
+    }
+
+    private Cached<V> cached(String id, long now) {
+        synchronized (cache) {
+            Cached<V> cached = cache.get(id);
+            if (cached != null && now - cached.storedAt() > ttlMillis) {
+                cache.remove(id);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private CompletableFuture<V> enqueue(String id) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(id, created);
+        if (existing != null) return existing;
+        boolean first;
+        synchronized (this) {
+            first = queued.isEmpty();
+            queued.add(Map.entry(id, created));
+        }
+        // The first miss of a window schedules the dispatch for everyone who joins it
+        if (first) scheduler.schedule(this::dispatch, windowMillis, TimeUnit.MILLISECONDS);
+        return created;
+    }
+
+    private void dispatch() {
+        List<Map.Entry<String, CompletableFuture<V>>> waiting;
+        synchronized (this) {
+            waiting = queued;
+            queued = new ArrayList<>();
+        }
+        if (waiting.isEmpty()) return;
+        Set<String> ids = new HashSet<>();
+        waiting.forEach(w -> ids.add(w.getKey()));
+        long startedAt = generation.get();
+        try {
+            Map<String, V> found = fetcher.apply(ids);
+            long now = System.currentTimeMillis();
+            synchronized (cache) {
+                if (generation.get() == startedAt) {
+                    found.forEach((id, value) -> cache.put(id, new Cached<>(value, now)));
+                }
+            }
+            for (Map.Entry<String, CompletableFuture<V>> w : waiting) {
+                inFlight.remove(w.getKey(), w.getValue());
+                w.getValue().complete(found.get(w.getKey()));
+            }
+        } catch (RuntimeException e) {
+            for (Map.Entry<String, CompletableFuture<V>> w : waiting) {
+                inFlight.remove(w.getKey(), w.getValue());
+                w.getValue().completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.management.library.Config;
+
+import com.management.library.BookManagement.dto.BookResponseDTO;
+import com.management.library.BookManagement.service.BookService;
+import com.management.library.MemberManagement.Dto.MemberResponse;
+import com.management.library.MemberManagement.Service.MemberService;
+import com.management.library.UserManagement.Dto.UserResponse;
+import com.management.library.UserManagement.Service.UserService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Loaders behind the /batch multi-get endpoints. The services invalidate entries on write, so
+ * each loader reaches its service through an {@link ObjectProvider} rather than a direct
+ * reference; {@code app.batch.cache-ttl-ms} still bounds how long any entry lives.
+ */
+@Configuration
+public class BatchLoaderConfig {
+
+    @Value("${app.batch.window-ms:5}")
+    private long windowMillis;
+
+    @Value("${app.batch.cache-ttl-ms:30000}")
+    private long ttlMillis;
+
+    @Value("${app.batch.cache-size:5000}")
+    private int cacheSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService batchLoaderScheduler() {
+        return Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "batch-loader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Bean
+    public BatchLoader<BookResponseDTO> bookBatchLoader(ObjectProvider<BookService> bookService,
+                                                        ScheduledExecutorService batchLoaderScheduler) {
+        return new BatchLoader<>(ids -> bookService.getObject().getBooksByIds(ids), batchLoaderScheduler, windowMillis, ttlMillis, cacheSize);
+    }
+
+    @Bean
+    public BatchLoader<MemberResponse> memberBatchLoader(ObjectProvider<MemberService> memberService,
+                                                         ScheduledExecutorService batchLoaderScheduler) {
+        return new BatchLoader<>(ids -> memberService.getObject().getMembersByIds(ids), batchLoaderScheduler, windowMillis, ttlMillis, cacheSize);
+    }
+
+    @Bean
+    public BatchLoader<UserResponse> userBatchLoader(ObjectProvider<UserService> userService,
+                                                     ScheduledExecutorService batchLoaderScheduler) {
+        return new BatchLoader<>(ids -> userService.getObject().getUsersByIds(ids), batchLoaderScheduler, windowMillis, ttlMillis, cacheSize);
+    }
+}
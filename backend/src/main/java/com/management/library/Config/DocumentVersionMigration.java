@@ -0,0 +1,47 @@
+package com.management.library.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Seeds {@code version: 0} on documents written before optimistic locking was added. Without it
+ * Spring Data sees a null version, treats the loaded document as new and the save fails with a
+ * duplicate key.
+ */
+@Component
+public class DocumentVersionMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentVersionMigration.class);
+    private static final List<String> COLLECTIONS = List.of("books", "members", "borrowings", "reservations");
+
+    private final MongoTemplate mongoTemplate;
+
+    public DocumentVersionMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedVersions() {
+        for (String collection : COLLECTIONS) {
+            try {
+                long updated = mongoTemplate.updateMulti(new Query(Criteria.where("version").exists(false)),
+                        new Update().set("version", 0L), collection).getModifiedCount();
+                if (updated > 0) log.info("Seeded version on {} {} documents", updated, collection);
+            } catch (Exception e) {
+                log.warn("Could not seed versions on {}: {}", collection, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.management.library.Config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
@@ -15,4 +18,10 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
 public class MongoConfig {
     // MongoDB's configuration is handled by application.properties
     // This class enables auditing for @CreatedDate and @LastModifiedDate
+
+    // Enables @Transactional for multi-document writes (requires a replica set, e.g. Atlas)
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
 }
\ No newline at end of file
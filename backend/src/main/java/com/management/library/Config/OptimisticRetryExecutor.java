@@ -0,0 +1,101 @@
+package com.management.library.Config;
+
+import com.management.library.UserManagement.Exception.StaleVersionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write against {@code @Version}ed documents and retries it when the save
+ * loses a race. Each attempt must re-read the document. Back-off is exponential with full
+ * jitter so contending writers spread out instead of colliding again. Conflicts are counted
+ * per operation name.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final Map<String, Counters> metrics = new ConcurrentHashMap<>();
+
+    public OptimisticRetryExecutor(@Value("${app.retry.optimistic.max-attempts:4}") int maxAttempts,
+                                   @Value("${app.retry.optimistic.base-delay-ms:10}") long baseDelayMs,
+                                   @Value("${app.retry.optimistic.max-delay-ms:200}") long maxDelayMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    private static final class Counters {
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder recovered = new LongAdder();
+        final LongAdder exhausted = new LongAdder();
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        Counters counters = metrics.computeIfAbsent(operation, k -> new Counters());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = action.get();
+                if (attempt > 1) counters.recovered.increment();
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                counters.conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    counters.exhausted.increment();
+                    log.warn("{} still conflicting after {} attempts", operation, attempt);
+                    throw e;
+                }
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Rejects an update made from a stale copy. A client that sends the version it last read
+     * gets a 409 instead of silently overwriting a newer edit; null skips the check.
+     */
+    public void checkVersion(Long expected, Long current, String what) {
+        if (expected != null && !Objects.equals(expected, current)) {
+            throw new StaleVersionException(what + " was modified by someone else (expected version "
+                    + expected + ", current " + current + ")");
+        }
+    }
+
+    public Map<String, Map<String, Long>> getMetrics() {
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        metrics.forEach((op, c) -> {
+            Map<String, Long> row = new LinkedHashMap<>();
+            row.put("conflicts", c.conflicts.sum());
+            row.put("recovered", c.recovered.sum());
+            row.put("exhausted", c.exhausted.sum());
+            snapshot.put(op, row);
+        });
+        return snapshot;
+    }
+
+    private void backOff(int attempt, OptimisticLockingFailureException cause) {
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
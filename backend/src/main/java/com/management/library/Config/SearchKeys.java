@@ -0,0 +1,138 @@
+package com.management.library.Config;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the {@code searchKeys} array stored on members and users. Every key is a lower-case,
+ * accent-free prefix, so a search is an exact match on a multikey index instead of a regex scan:
+ * word prefixes for names, the email local part and {@code @domain}, digit prefixes for phone
+ * numbers and prefixes of identifiers such as member IDs.
+ */
+public final class SearchKeys {
+
+    /** Longer query terms are cut to this length; keys are never longer. */
+    public static final int MAX_KEY_LENGTH = 20;
+
+    private static final int MIN_DIGIT_KEY_LENGTH = 3;
+    private static final int SUBSCRIBER_DIGITS = 7;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern PHONE_PUNCTUATION = Pattern.compile("[\\s()+.\\-]");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    private final Set<String> keys = new LinkedHashSet<>();
+
+    public SearchKeys words(String text) {
+        for (String word : split(normalize(text))) {
+            addPrefixes(word, 1);
+        }
+        return this;
+    }
+
+    public SearchKeys email(String email) {
+        if (email == null) return this;
+        String normalized = normalize(email);
+        int at = normalized.indexOf('@');
+        if (at < 0) return words(normalized);
+        words(normalized.substring(0, at));
+        addPrefixes(normalized.substring(at), 2);
+        return this;
+    }
+
+    public SearchKeys phone(String phone) {
+        if (phone == null) return this;
+        String digits = phone.replaceAll("\\D", "");
+        addPrefixes(digits, MIN_DIGIT_KEY_LENGTH);
+        // Numbers are often searched without the country or area code
+        if (digits.length() > SUBSCRIBER_DIGITS) {
+            addPrefixes(digits.substring(digits.length() - SUBSCRIBER_DIGITS), MIN_DIGIT_KEY_LENGTH);
+        }
+        return this;
+    }
+
+    public SearchKeys identifier(String id) {
+        if (id == null) return this;
+        String normalized = NON_ALNUM.matcher(normalize(id)).replaceAll("");
+        addPrefixes(normalized, 1);
+        // LIB2025001 is also found by 2025001
+        Matcher digits = DIGITS.matcher(normalized);
+        if (digits.find() && digits.start() > 0) {
+            addPrefixes(normalized.substring(digits.start()), MIN_DIGIT_KEY_LENGTH);
+        }
+        return this;
+    }
+
+    public List<String> build() {
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Splits a search query into the keys that must all be present. A query made only of digits
+     * and phone punctuation is kept as one digit string; a term containing {@code @} matches the
+     * email local part and domain separately.
+     *
+     * @throws IllegalArgumentException if a number is shorter than the shortest digit key, since
+     *                                  it could never match
+     */
+    public static List<String> queryTerms(String query) {
+        if (query == null) return List.of();
+        String trimmed = query.trim();
+        String digits = PHONE_PUNCTUATION.matcher(trimmed).replaceAll("");
+        if (!digits.isEmpty() && digits.chars().allMatch(Character::isDigit)) {
+            return List.of(truncate(requireDigitKeyLength(digits)));
+        }
+
+        Set<String> terms = new LinkedHashSet<>();
+        for (String part : normalize(trimmed).split("\\s+")) {
+            int at = part.indexOf('@');
+            if (at >= 0) {
+                terms.addAll(split(part.substring(0, at)));
+                String domain = part.substring(at).replaceAll("[^a-z0-9@.\\-]", "");
+                if (domain.length() > 1) terms.add(domain);
+            } else {
+                terms.addAll(split(part));
+            }
+        }
+        terms.stream().filter(t -> DIGITS.matcher(t).matches()).forEach(SearchKeys::requireDigitKeyLength);
+        return terms.stream().map(SearchKeys::truncate).distinct().toList();
+    }
+
+    private static String requireDigitKeyLength(String digits) {
+        if (digits.length() < MIN_DIGIT_KEY_LENGTH) {
+            throw new IllegalArgumentException("Search numbers need at least " + MIN_DIGIT_KEY_LENGTH + " digits: " + digits);
+        }
+        return digits;
+    }
+
+    private void addPrefixes(String value, int minLength) {
+        int max = Math.min(value.length(), MAX_KEY_LENGTH);
+        for (int length = minLength; length <= max; length++) {
+            keys.add(value.substring(0, length));
+        }
+    }
+
+    private static List<String> split(String normalized) {
+        List<String> words = new ArrayList<>();
+        for (String word : NON_ALNUM.split(normalized)) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static String truncate(String term) {
+        return term.length() > MAX_KEY_LENGTH ? term.substring(0, MAX_KEY_LENGTH) : term;
+    }
+}
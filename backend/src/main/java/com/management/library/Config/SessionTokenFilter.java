@@ -0,0 +1,64 @@
+package com.management.library.Config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Authenticates requests carrying {@code Authorization: Bearer <session token>} from the token
+ * alone. Requests without a token pass through unchanged; a bad, expired or revoked token is
+ * answered with 401 so the client can log in again.
+ */
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    public static final String PRINCIPAL_ATTRIBUTE = "sessionPrincipal";
+    private static final String BEARER = "Bearer ";
+
+    private final SessionTokenService tokenService;
+
+    public SessionTokenFilter(SessionTokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    // Logging in or resetting a password must work even with a stale token still stored client-side
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return path.equals("/api/users/login") || path.equals("/api/members/login")
+                || path.startsWith("/api/users/password/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<SessionTokenService.SessionPrincipal> principal = tokenService.verify(header.substring(BEARER.length()).trim());
+        if (principal.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"message\":\"Session expired or invalid, please log in again\"}");
+            return;
+        }
+
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal.get());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                principal.get(), null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        chain.doFilter(request, response);
+    }
+}
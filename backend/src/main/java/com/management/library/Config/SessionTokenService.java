@@ -0,0 +1,142 @@
+package com.management.library.Config;
+
+import com.management.library.UserManagement.Entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies compact HMAC-SHA256 session tokens ({@code payload.signature}, both
+ * base64url). Verification needs no database access; the only shared state is a small map of
+ * users whose sessions were revoked (deactivated, deleted, password changed), holding the time
+ * of revocation so tokens issued before it are rejected and later logins still work.
+ */
+@Component
+public class SessionTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public record SessionPrincipal(String userId, String username, Instant issuedAt, Instant expiresAt) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final ThreadLocal<Mac> macs;
+    private final Map<String, Instant> revokedAt = new ConcurrentHashMap<>();
+
+    public SessionTokenService(MongoTemplate mongoTemplate,
+                               @Value("${app.auth.token.secret:}") String secret,
+                               @Value("${app.auth.token.ttl-minutes:480}") long ttlMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("app.auth.token.secret is not set; using a random key, sessions will not survive a restart");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
+
+    // Deactivated accounts stay revoked across restarts
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        try {
+            Query deactivated = new Query(Criteria.where("status").is(User.UserStatus.DEACTIVATED));
+            deactivated.fields().include("_id");
+            Instant now = Instant.now();
+            for (User user : mongoTemplate.find(deactivated, User.class)) {
+                revokedAt.put(user.getId(), now);
+            }
+        } catch (Exception e) {
+            log.warn("Could not load deactivated users for session revocation: {}", e.getMessage());
+        }
+    }
+
+    public String issue(User user) {
+        Instant now = Instant.now();
+        String payload = user.getId() + "\n" + user.getUsername() + "\n"
+                + now.toEpochMilli() + "\n" + now.plus(ttl).toEpochMilli();
+        String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + sign(encoded);
+    }
+
+    public Optional<SessionPrincipal> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) return Optional.empty();
+        String encoded = token.substring(0, dot);
+        byte[] expected = sign(encoded).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) return Optional.empty();
+
+        String[] parts;
+        try {
+            parts = new String(DECODER.decode(encoded), StandardCharsets.UTF_8).split("\n", -1);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (parts.length != 4) return Optional.empty();
+        Instant issuedAt = Instant.ofEpochMilli(Long.parseLong(parts[2]));
+        Instant expiresAt = Instant.ofEpochMilli(Long.parseLong(parts[3]));
+        if (!Instant.now().isBefore(expiresAt)) return Optional.empty();
+
+        Instant revoked = revokedAt.get(parts[0]);
+        if (revoked != null && !issuedAt.isAfter(revoked)) return Optional.empty();
+        return Optional.of(new SessionPrincipal(parts[0], parts[1], issuedAt, expiresAt));
+    }
+
+    /** Invalidates every token issued to the user so far. */
+    public void revoke(String userId) {
+        revokedAt.put(userId, Instant.now());
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    // A revocation older than the token lifetime can no longer match a live token
+    @Scheduled(fixedDelayString = "${app.auth.token.revocation-cleanup-ms:600000}")
+    public void pruneRevocations() {
+        Instant cutoff = Instant.now().minus(ttl);
+        revokedAt.values().removeIf(at -> at.isBefore(cutoff));
+    }
+
+    private String sign(String encodedPayload) {
+        return ENCODER.encodeToString(macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -1,19 +1,31 @@
 package com.management.library.MemberManagement.Controller;
 
+import com.management.library.Config.BatchLoader;
+import com.management.library.Config.SessionTokenFilter;
+import com.management.library.Config.SessionTokenService;
 import com.management.library.MemberManagement.Dto.*;
 import com.management.library.MemberManagement.Entity.Member;
+import com.management.library.MemberManagement.Service.MemberImportService;
+import com.management.library.MemberManagement.Service.MemberProfileService;
 import com.management.library.MemberManagement.Service.MemberService;
 import com.management.library.UserManagement.Dto.ApiResponse;
+import com.management.library.UserManagement.Exception.StaleVersionException;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/members")
@@ -22,9 +34,20 @@ public class MemberController {
 
     private static final Logger log = LoggerFactory.getLogger(MemberController.class);
     private final MemberService memberService;
-
-    public MemberController(MemberService memberService) {
+    private final MemberProfileService memberProfileService;
+    private final MemberImportService memberImportService;
+    private final BatchLoader<MemberResponse> memberBatchLoader;
+    private final int maxBatchIds;
+
+    public MemberController(MemberService memberService, MemberProfileService memberProfileService,
+                            MemberImportService memberImportService,
+                            BatchLoader<MemberResponse> memberBatchLoader,
+                            @Value("${app.batch.max-ids:100}") int maxBatchIds) {
         this.memberService = memberService;
+        this.memberProfileService = memberProfileService;
+        this.memberImportService = memberImportService;
+        this.memberBatchLoader = memberBatchLoader;
+        this.maxBatchIds = maxBatchIds;
     }
 
     @PostMapping
@@ -50,6 +73,33 @@ public class MemberController {
         }
     }
 
+    // Streams the request body; send text/csv with a header row or a JSON array of members
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ApiResponse<MemberImportResult>> importMembers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        log.info("Importing members from {}", contentType);
+
+        try {
+            MemberImportResult result = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON)
+                    ? memberImportService.importJson(body)
+                    : memberImportService.importCsv(body);
+            ApiResponse<MemberImportResult> response = new ApiResponse<>(
+                    true,
+                    String.format("Imported %d of %d members", result.getImported(), result.getTotal()),
+                    result
+            );
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error importing members: {}", e.getMessage());
+            ApiResponse<MemberImportResult> response = new ApiResponse<>(
+                    false,
+                    "Error importing members: " + e.getMessage(),
+                    null
+            );
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
     @PostMapping("/auto-create")
     public ResponseEntity<ApiResponse<MemberResponse>> createMemberFromUser(
             @RequestParam String userId,
@@ -77,6 +127,17 @@ public class MemberController {
         }
     }
 
+    @GetMapping("/batch")
+    public ResponseEntity<ApiResponse<List<MemberResponse>>> getMembersByIds(@RequestParam List<String> ids) {
+        log.info("Getting {} members by ID", ids.size());
+
+        if (ids.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " IDs can be requested at once");
+        }
+        List<MemberResponse> members = memberBatchLoader.getAll(ids);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Members retrieved successfully", members));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<MemberResponse>> getMemberById(@PathVariable String id) {
         log.info("Getting member by ID: {}", id);
@@ -147,6 +208,35 @@ public class MemberController {
         }
     }
 
+    @GetMapping("/user/{userId}/profile")
+    public ResponseEntity<ApiResponse<MemberProfileResponse>> getMemberProfile(@PathVariable String userId) {
+        log.info("Getting profile for user ID: {}", userId);
+
+        MemberProfileResponse profile = memberProfileService.getProfileByUserId(userId);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Member profile retrieved successfully", profile));
+    }
+
+    // Member of the logged-in user; the user id comes from the session token, not the URL
+    @GetMapping("/me")
+    public ResponseEntity<ApiResponse<MemberResponse>> getCurrentMember(
+            @RequestAttribute(name = SessionTokenFilter.PRINCIPAL_ATTRIBUTE, required = false)
+            SessionTokenService.SessionPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error("Not logged in"));
+        }
+        return getMemberByUserId(principal.userId());
+    }
+
+    @GetMapping("/me/profile")
+    public ResponseEntity<ApiResponse<MemberProfileResponse>> getCurrentMemberProfile(
+            @RequestAttribute(name = SessionTokenFilter.PRINCIPAL_ATTRIBUTE, required = false)
+            SessionTokenService.SessionPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error("Not logged in"));
+        }
+        return getMemberProfile(principal.userId());
+    }
+
     @GetMapping
     public ResponseEntity<ApiResponse<List<MemberResponse>>> getAllMembers() {
         log.info("Getting all members");
@@ -255,6 +345,8 @@ public class MemberController {
                     memberResponse
             );
             return ResponseEntity.ok(response);
+        } catch (StaleVersionException | OptimisticLockingFailureException e) {
+            throw e; // 409 from GlobalExceptionHandler
         } catch (Exception e) {
             log.error("Error updating member: {}", e.getMessage());
             ApiResponse<MemberResponse> response = new ApiResponse<>(
@@ -336,6 +428,28 @@ public class MemberController {
     }
 
     // Statistics endpoints for dashboard
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMemberStats() {
+        log.info("Getting member statistics");
+
+        try {
+            ApiResponse<Map<String, Object>> response = new ApiResponse<>(
+                    true,
+                    "Member statistics retrieved successfully",
+                    memberService.getMemberStats()
+            );
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error getting member statistics: {}", e.getMessage());
+            ApiResponse<Map<String, Object>> response = new ApiResponse<>(
+                    false,
+                    "Error getting member statistics: " + e.getMessage(),
+                    null
+            );
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     @GetMapping("/stats/total")
     public ResponseEntity<ApiResponse<Long>> getTotalMembersCount() {
         log.info("Getting total members count");
@@ -430,6 +544,34 @@ public class MemberController {
         }
     }
 
+    @GetMapping("/{id}/fines")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getFineAccount(@PathVariable String id) {
+        log.info("Getting fine account for member: {}", id);
+
+        Map<String, Object> account = memberService.getFineAccount(id);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Fine account retrieved successfully", account));
+    }
+
+    @PostMapping("/{id}/fines/payments")
+    public ResponseEntity<ApiResponse<MemberResponse>> recordFinePayment(
+            @PathVariable String id,
+            @Valid @RequestBody FinePaymentRequest request) {
+        log.info("Recording fine payment for member: {}", id);
+
+        MemberResponse memberResponse = memberService.recordFinePayment(id, request);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Payment recorded successfully", memberResponse));
+    }
+
+    @PostMapping("/{id}/fines/adjustments")
+    public ResponseEntity<ApiResponse<MemberResponse>> adjustFine(
+            @PathVariable String id,
+            @Valid @RequestBody FineAdjustmentRequest request) {
+        log.info("Adjusting fine for member: {}", id);
+
+        MemberResponse memberResponse = memberService.adjustFine(id, request);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Fine adjusted successfully", memberResponse));
+    }
+
     @GetMapping("/with-fines")
     public ResponseEntity<ApiResponse<List<MemberResponse>>> getMembersWithFines() {
         log.info("Getting members with fines");
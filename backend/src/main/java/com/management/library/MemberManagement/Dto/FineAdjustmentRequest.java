@@ -0,0 +1,48 @@
+package com.management.library.MemberManagement.Dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+public class FineAdjustmentRequest {
+
+    // Positive charges the member, negative waives; at most two decimal places
+    @NotNull(message = "Amount is required")
+    @Digits(integer = 9, fraction = 2, message = "Amount must have at most two decimal places")
+    private BigDecimal amount;
+
+    // Balance the staff member was looking at; the adjustment is rejected if it has changed since
+    @NotNull(message = "Expected balance is required")
+    @Digits(integer = 9, fraction = 2, message = "Expected balance must have at most two decimal places")
+    private BigDecimal expectedBalance;
+
+    private String note;
+
+    public FineAdjustmentRequest() {
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getExpectedBalance() {
+        return expectedBalance;
+    }
+
+    public void setExpectedBalance(BigDecimal expectedBalance) {
+        this.expectedBalance = expectedBalance;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+}
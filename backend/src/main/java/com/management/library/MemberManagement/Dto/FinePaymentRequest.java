@@ -0,0 +1,36 @@
+package com.management.library.MemberManagement.Dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+public class FinePaymentRequest {
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    @Digits(integer = 9, fraction = 2, message = "Amount must have at most two decimal places")
+    private BigDecimal amount;
+
+    private String note;
+
+    public FinePaymentRequest() {
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+}
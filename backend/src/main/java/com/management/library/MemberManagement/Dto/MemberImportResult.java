@@ -0,0 +1,95 @@
+package com.management.library.MemberManagement.Dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MemberImportResult {
+
+    // Only the first errors are reported; failed still counts all of them
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private int total;
+
+    private int imported;
+
+    private int failed;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    private long elapsedMillis;
+
+    // Default constructor
+    public MemberImportResult() {
+    }
+
+    public void addImported(int count) {
+        total += count;
+        imported += count;
+    }
+
+    public void addError(int row, String email, String message) {
+        total++;
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, email, message));
+        }
+    }
+
+    // Getters
+    public int getTotal() {
+        return total;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Records handled per second, imported or rejected
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? total : total * 1000L / elapsedMillis;
+    }
+
+    /** A rejected record; row is its 1-based position among the data records. */
+    public static class RowError {
+
+        private final int row;
+
+        private final String email;
+
+        private final String message;
+
+        public RowError(int row, String email, String message) {
+            this.row = row;
+            this.email = email;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.management.library.MemberManagement.Dto;
+
+import com.management.library.BookManagement.entity.Book;
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.Reservation;
+import com.management.library.UserManagement.Dto.UserResponse;
+
+import java.util.List;
+import java.util.Map;
+
+// Everything the member profile page needs, in one response
+public class MemberProfileResponse {
+
+    private MemberResponse member;
+    private UserResponse user;
+    private List<Borrowing> borrowings;
+    private List<Reservation> reservations;
+    private Map<String, Book> books; // keyed by book id, for the loans and holds above
+
+    public MemberProfileResponse() {
+    }
+
+    public MemberProfileResponse(MemberResponse member, UserResponse user, List<Borrowing> borrowings,
+                                 List<Reservation> reservations, Map<String, Book> books) {
+        this.member = member;
+        this.user = user;
+        this.borrowings = borrowings;
+        this.reservations = reservations;
+        this.books = books;
+    }
+
+    public MemberResponse getMember() {
+        return member;
+    }
+
+    public void setMember(MemberResponse member) {
+        this.member = member;
+    }
+
+    public UserResponse getUser() {
+        return user;
+    }
+
+    public void setUser(UserResponse user) {
+        this.user = user;
+    }
+
+    public List<Borrowing> getBorrowings() {
+        return borrowings;
+    }
+
+    public void setBorrowings(List<Borrowing> borrowings) {
+        this.borrowings = borrowings;
+    }
+
+    public List<Reservation> getReservations() {
+        return reservations;
+    }
+
+    public void setReservations(List<Reservation> reservations) {
+        this.reservations = reservations;
+    }
+
+    public Map<String, Book> getBooks() {
+        return books;
+    }
+
+    public void setBooks(Map<String, Book> books) {
+        this.books = books;
+    }
+}
@@ -24,6 +24,7 @@ public class MemberResponse {
     private String profilePictureUrl;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 
     // Default constructor
     public MemberResponse() {
@@ -57,7 +58,7 @@ public class MemberResponse {
 
     // Static factory method
     public static MemberResponse fromEntity(Member member) {
-        return new MemberResponse(
+        MemberResponse response = new MemberResponse(
                 member.getId(),
                 member.getMemberId(),
                 member.getUserId(),
@@ -77,6 +78,8 @@ public class MemberResponse {
                 member.getCreatedAt(),
                 member.getUpdatedAt()
         );
+        response.setVersion(member.getVersion());
+        return response;
     }
 
     // Getters
@@ -152,6 +155,10 @@ public class MemberResponse {
         return updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     // Setters
     public void setId(String id) {
         this.id = id;
@@ -224,4 +231,8 @@ public class MemberResponse {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
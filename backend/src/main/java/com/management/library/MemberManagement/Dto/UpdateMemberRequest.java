@@ -19,8 +19,8 @@ public class UpdateMemberRequest {
     private LocalDate expiryDate;
     private Member.MemberStatus status;
     private int borrowingLimit;
-    private double fineAmount;
     private String profilePictureUrl;
+    private Long version; // version the client last read; null skips the check
 
     // Default constructor
     public UpdateMemberRequest() {
@@ -30,7 +30,7 @@ public class UpdateMemberRequest {
     public UpdateMemberRequest(String firstName, String lastName, String email, String phoneNumber,
                                String address, String emergencyContact, Member.MembershipType membershipType,
                                LocalDate expiryDate, Member.MemberStatus status, int borrowingLimit,
-                               double fineAmount, String profilePictureUrl) {
+                               String profilePictureUrl) {
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
@@ -41,7 +41,6 @@ public class UpdateMemberRequest {
         this.expiryDate = expiryDate;
         this.status = status;
         this.borrowingLimit = borrowingLimit;
-        this.fineAmount = fineAmount;
         this.profilePictureUrl = profilePictureUrl;
     }
 
@@ -86,10 +85,6 @@ public class UpdateMemberRequest {
         return borrowingLimit;
     }
 
-    public double getFineAmount() {
-        return fineAmount;
-    }
-
     public String getProfilePictureUrl() {
         return profilePictureUrl;
     }
@@ -135,11 +130,15 @@ public class UpdateMemberRequest {
         this.borrowingLimit = borrowingLimit;
     }
 
-    public void setFineAmount(double fineAmount) {
-        this.fineAmount = fineAmount;
-    }
-
     public void setProfilePictureUrl(String profilePictureUrl) {
         this.profilePictureUrl = profilePictureUrl;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.management.library.MemberManagement.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One immutable movement on a member's fine account. Amounts are in minor units (cents):
+ * positive entries charge the member, negative entries pay or waive.
+ */
+@Document(collection = "fine_ledger")
+public class FineLedgerEntry {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String memberId; // Member._id
+
+    private EntryType type;
+
+    private long amountMinor;
+
+    // Unique per business event (e.g. LATE_FEE:<borrowingId>) so replays are not double-charged
+    @Indexed(unique = true, sparse = true)
+    private String reference;
+
+    private String note;
+
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public FineLedgerEntry() {
+    }
+
+    public FineLedgerEntry(String memberId, EntryType type, long amountMinor, String reference, String note) {
+        this.memberId = memberId;
+        this.type = type;
+        this.amountMinor = amountMinor;
+        this.reference = reference;
+        this.note = note;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public void setMemberId(String memberId) {
+        this.memberId = memberId;
+    }
+
+    public EntryType getType() {
+        return type;
+    }
+
+    public void setType(EntryType type) {
+        this.type = type;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public void setAmountMinor(long amountMinor) {
+        this.amountMinor = amountMinor;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public enum EntryType {
+        OPENING_BALANCE,
+        LATE_FEE,
+        PAYMENT,
+        ADJUSTMENT
+    }
+}
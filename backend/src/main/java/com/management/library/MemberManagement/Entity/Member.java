@@ -4,10 +4,12 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document(collection = "members")
 public class Member {
@@ -46,12 +48,18 @@ public class Member {
 
     private String profilePictureUrl;
 
+    // Normalized prefixes/n-grams of the searchable fields, maintained by the search index on every save
+    private List<String> searchKeys;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
     // Constructors
     public Member() {
     }
@@ -146,6 +154,14 @@ public class Member {
         return updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public List<String> getSearchKeys() {
+        return searchKeys;
+    }
+
     // Setters
     public void setId(String id) {
         this.id = id;
@@ -219,6 +235,14 @@ public class Member {
         this.updatedAt = updatedAt;
     }
 
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public void setSearchKeys(List<String> searchKeys) {
+        this.searchKeys = searchKeys;
+    }
+
     // Enums
     public enum MembershipType {
         BASIC, PREMIUM, STUDENT, FAMILY, FACULTY, REGULAR
@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +14,9 @@ public interface MemberRepository extends MongoRepository<Member, String> {
 
     Optional<Member> findByMemberId(String memberId);
 
-    List<Member> findAllByMemberId(String memberId);
+    // Circulation records reference members by member ID (e.g. LIB2025001) or by document ID
+    @Query("{ $or: [ { 'memberId': { $in: ?0 } }, { '_id': { $in: ?0 } } ] }")
+    List<Member> findByMemberKeys(Collection<String> memberKeys);
 
     Optional<Member> findByUserId(String userId);
 
@@ -32,9 +35,6 @@ public interface MemberRepository extends MongoRepository<Member, String> {
     @Query("{ 'membershipType': ?0, 'status': ?1 }")
     List<Member> findByMembershipTypeAndStatus(Member.MembershipType membershipType, Member.MemberStatus status);
 
-    @Query("{ $or: [ { 'firstName': { $regex: ?0, $options: 'i' } }, { 'lastName': { $regex: ?0, $options: 'i' } }, { 'email': { $regex: ?0, $options: 'i' } }, { 'phoneNumber': { $regex: ?0, $options: 'i' } }, { 'memberId': { $regex: ?0, $options: 'i' } } ] }")
-    List<Member> findBySearchQuery(String searchQuery);
-
     long countByMembershipType(Member.MembershipType membershipType);
 
     long countByStatus(Member.MemberStatus status);
@@ -0,0 +1,266 @@
+package com.management.library.MemberManagement.Service;
+
+import com.management.library.MemberManagement.Entity.Member;
+import com.management.library.UserManagement.Entity.User;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * User and member counts for the dashboards. Each collection is counted with one $facet
+ * aggregation; the result is cached and served stale-while-revalidate: once older than the TTL
+ * the cached counts are still returned while a single background refresh recomputes them.
+ * Writes in UserService and MemberService adjust the cached counters in between, so the
+ * refresh only corrects drift. Refreshes run on their own thread, and writes that land while a
+ * load is running are replayed onto the new snapshot rather than lost with the old one.
+ */
+@Service
+public class AccountStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountStatsService.class);
+    private static final String USERS = "users";
+    private static final String MEMBERS = "members";
+
+    private record Snapshot(Map<String, AtomicLong> counts, long loadedAt) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final FineLedgerService fineLedger;
+    private final long ttlMillis;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "account-stats-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object deltaLock = new Object();
+    // Writes seen since the running load started; null when no load is running. Guarded by deltaLock
+    private Map<String, Long> deltasDuringLoad;
+
+    public AccountStatsService(MongoTemplate mongoTemplate, FineLedgerService fineLedger,
+                               @Value("${app.stats.ttl-ms:60000}") long ttlMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.fineLedger = fineLedger;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public Map<String, Object> getUserStats() {
+        Map<String, AtomicLong> counts = current();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalUsers", get(counts, USERS));
+        stats.put("activeUsers", get(counts, key(USERS, "status", User.UserStatus.ACTIVATED)));
+        stats.put("deactivatedUsers", get(counts, key(USERS, "status", User.UserStatus.DEACTIVATED)));
+        return stats;
+    }
+
+    public Map<String, Object> getMemberStats() {
+        Map<String, AtomicLong> counts = current();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalMembers", get(counts, MEMBERS));
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (Member.MemberStatus status : Member.MemberStatus.values()) {
+            byStatus.put(status.name(), get(counts, key(MEMBERS, "status", status)));
+        }
+        Map<String, Long> byType = new LinkedHashMap<>();
+        for (Member.MembershipType type : Member.MembershipType.values()) {
+            byType.put(type.name(), get(counts, key(MEMBERS, "type", type)));
+        }
+        stats.put("byStatus", byStatus);
+        stats.put("byMembershipType", byType);
+        // Already held in memory by the ledger
+        stats.put("membersWithFines", (long) fineLedger.membersOwing().size());
+        return stats;
+    }
+
+    public long memberCount() {
+        return get(current(), MEMBERS);
+    }
+
+    public long memberCountByStatus(Member.MemberStatus status) {
+        return get(current(), key(MEMBERS, "status", status));
+    }
+
+    public long memberCountByMembershipType(Member.MembershipType type) {
+        return get(current(), key(MEMBERS, "type", type));
+    }
+
+    // Incremental updates from writes; inside a transaction they apply only once it commits
+
+    public void userAdded(User.UserStatus status) {
+        afterCommit(() -> {
+            add(USERS, 1);
+            add(key(USERS, "status", status), 1);
+        });
+    }
+
+    public void userRemoved(User.UserStatus status) {
+        afterCommit(() -> {
+            add(USERS, -1);
+            add(key(USERS, "status", status), -1);
+        });
+    }
+
+    public void userStatusChanged(User.UserStatus from, User.UserStatus to) {
+        if (from == to) return;
+        afterCommit(() -> {
+            add(key(USERS, "status", from), -1);
+            add(key(USERS, "status", to), 1);
+        });
+    }
+
+    public void memberAdded(Member.MemberStatus status, Member.MembershipType type) {
+        afterCommit(() -> {
+            add(MEMBERS, 1);
+            add(key(MEMBERS, "status", status), 1);
+            add(key(MEMBERS, "type", type), 1);
+        });
+    }
+
+    public void memberRemoved(Member.MemberStatus status, Member.MembershipType type) {
+        afterCommit(() -> {
+            add(MEMBERS, -1);
+            add(key(MEMBERS, "status", status), -1);
+            add(key(MEMBERS, "type", type), -1);
+        });
+    }
+
+    public void memberChanged(Member.MemberStatus fromStatus, Member.MembershipType fromType,
+                              Member.MemberStatus toStatus, Member.MembershipType toType) {
+        afterCommit(() -> {
+            if (fromStatus != toStatus) {
+                add(key(MEMBERS, "status", fromStatus), -1);
+                add(key(MEMBERS, "status", toStatus), 1);
+            }
+            if (fromType != toType) {
+                add(key(MEMBERS, "type", fromType), -1);
+                add(key(MEMBERS, "type", toType), 1);
+            }
+        });
+    }
+
+    // A rolled-back registration must not leave its member in the cached counts
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private Map<String, AtomicLong> current() {
+        Snapshot s = snapshot.get();
+        if (s == null) {
+            // First request pays for the load; everyone after that is served from cache
+            synchronized (this) {
+                s = snapshot.get();
+                if (s == null) {
+                    s = refresh();
+                }
+            }
+        } else if (System.currentTimeMillis() - s.loadedAt() > ttlMillis && refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } catch (Exception e) {
+                    log.warn("Could not refresh account statistics: {}", e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+        return s.counts();
+    }
+
+    // Loads new counts and swaps them in together with every write that happened meanwhile
+    private Snapshot refresh() {
+        synchronized (deltaLock) {
+            deltasDuringLoad = new HashMap<>();
+        }
+        try {
+            Snapshot fresh = load();
+            synchronized (deltaLock) {
+                deltasDuringLoad.forEach((key, delta) -> fresh.counts().computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta));
+                snapshot.set(fresh);
+                return fresh;
+            }
+        } finally {
+            synchronized (deltaLock) {
+                deltasDuringLoad = null;
+            }
+        }
+    }
+
+    private Snapshot load() {
+        Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+        facet(USERS, User.class, Aggregation.facet(Aggregation.count().as("n")).as("total")
+                .and(Aggregation.group("status").count().as("n")).as("status"), counts);
+        facet(MEMBERS, Member.class, Aggregation.facet(Aggregation.count().as("n")).as("total")
+                .and(Aggregation.group("status").count().as("n")).as("status")
+                .and(Aggregation.group("membershipType").count().as("n")).as("type"), counts);
+        return new Snapshot(counts, System.currentTimeMillis());
+    }
+
+    private void facet(String prefix, Class<?> collection, FacetOperation facet, Map<String, AtomicLong> counts) {
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(facet), collection, Document.class)
+                .getUniqueMappedResult();
+        if (result == null) return;
+        for (String name : result.keySet()) {
+            for (Document bucket : result.getList(name, Document.class, List.of())) {
+                long n = ((Number) bucket.get("n")).longValue();
+                if ("total".equals(name)) {
+                    counts.put(prefix, new AtomicLong(n));
+                } else if (bucket.get("_id") != null) {
+                    counts.put(prefix + "." + name + "." + bucket.get("_id"), new AtomicLong(n));
+                }
+            }
+        }
+    }
+
+    private void add(String key, long delta) {
+        if (key == null) return;
+        synchronized (deltaLock) {
+            if (deltasDuringLoad != null) deltasDuringLoad.merge(key, delta, Long::sum);
+            Snapshot s = snapshot.get();
+            if (s != null) s.counts().computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private static String key(String prefix, String facet, Enum<?> value) {
+        return value == null ? null : prefix + "." + facet + "." + value.name();
+    }
+
+    private static long get(Map<String, AtomicLong> counts, String key) {
+        AtomicLong n = counts.get(key);
+        return n == null ? 0 : Math.max(0, n.get());
+    }
+}
@@ -0,0 +1,289 @@
+package com.management.library.MemberManagement.Service;
+
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.Config.BatchLoader;
+import com.management.library.MemberManagement.Dto.MemberResponse;
+import com.management.library.MemberManagement.Entity.FineLedgerEntry;
+import com.management.library.MemberManagement.Entity.Member;
+import com.management.library.MemberManagement.Repository.MemberRepository;
+import com.management.library.UserManagement.Exception.StaleVersionException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only fine ledger. Every charge, payment and adjustment is an entry in {@code fine_ledger}
+ * with an exact amount in minor units; running balances per member are kept in memory together
+ * with the set of members owing money. Balances are periodically compacted into
+ * {@code fine_balances} so a restart only replays entries written since the last snapshot.
+ * Late fees are posted by the return paths themselves; a periodic reconciliation against recent
+ * returns catches any fee whose posting was interrupted.
+ */
+@Service
+public class FineLedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(FineLedgerService.class);
+    public static final long MINOR_PER_UNIT = 100;
+    private static final String BALANCES = "fine_balances";
+    private static final String STATE = "fine_ledger_state";
+    private static final String CURSOR_ID = "compaction";
+    private static final String LATE_FEES_ID = "lateFees";
+    private static final int RECONCILE_DAYS = 7;
+    private static final int RECONCILE_BATCH = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final MemberRepository memberRepository;
+    private final BatchLoader<MemberResponse> memberBatchLoader;
+    private final Map<String, Long> balances = new ConcurrentHashMap<>();
+    private final Set<String> owing = ConcurrentHashMap.newKeySet();
+
+    public FineLedgerService(MongoTemplate mongoTemplate, MemberRepository memberRepository,
+                             BatchLoader<MemberResponse> memberBatchLoader) {
+        this.mongoTemplate = mongoTemplate;
+        this.memberRepository = memberRepository;
+        this.memberBatchLoader = memberBatchLoader;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            mongoTemplate.indexOps(FineLedgerEntry.class).createIndex(new Index().on("memberId", Sort.Direction.ASC));
+            mongoTemplate.indexOps(FineLedgerEntry.class).createIndex(new Index()
+                    .on("reference", Sort.Direction.ASC).unique().sparse());
+            seedOpeningBalances();
+            // Late fees are charged from the day the ledger went live; older returns were never billed
+            mongoTemplate.upsert(new Query(Criteria.where("_id").is(LATE_FEES_ID)),
+                    new Update().setOnInsert("since", LocalDate.now().toString()), STATE);
+
+            for (Document snapshot : mongoTemplate.findAll(Document.class, BALANCES)) {
+                apply(snapshot.getString("_id"), ((Number) snapshot.get("balanceMinor")).longValue());
+            }
+            ObjectId cursor = loadCursor();
+            Criteria since = cursor == null ? new Criteria() : Criteria.where("_id").gt(cursor);
+            sumByMember(since).forEach(this::apply);
+            log.info("Fine ledger loaded: {} members owe fines", owing.size());
+        } catch (Exception e) {
+            log.warn("Could not load fine ledger: {}", e.getMessage());
+        }
+        reconcileLateFees();
+    }
+
+    /*
+     * Carries legacy Member.fineAmount values into the ledger. Each carried amount is cleared on
+     * the member afterwards, so an interrupted seed resumes with the members not yet carried over;
+     * the OPENING reference keeps a member from being seeded twice.
+     */
+    private void seedOpeningBalances() {
+        for (Member member : memberRepository.findMembersWithFines()) {
+            append(member.getId(), FineLedgerEntry.EntryType.OPENING_BALANCE, toMinor(member.getFineAmount()),
+                    "OPENING:" + member.getId(), "Balance carried over from fineAmount");
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(member.getId())),
+                    new Update().set("fineAmount", 0.0), Member.class);
+        }
+    }
+
+    public long balanceOf(String memberId) {
+        return memberId == null ? 0 : balances.getOrDefault(memberId, 0L);
+    }
+
+    /** Ids (Member._id) of members with a positive balance. */
+    public Set<String> membersOwing() {
+        return Set.copyOf(owing);
+    }
+
+    public List<FineLedgerEntry> entriesOf(String memberId) {
+        return mongoTemplate.find(new Query(Criteria.where("memberId").is(memberId))
+                .with(Sort.by(Sort.Direction.DESC, "_id")), FineLedgerEntry.class);
+    }
+
+    public synchronized void recordPayment(String memberId, long amountMinor, String note) {
+        if (amountMinor <= 0) throw new IllegalArgumentException("Payment amount must be positive");
+        long balance = balanceOf(memberId);
+        if (amountMinor > balance) {
+            throw new IllegalArgumentException("Payment exceeds the outstanding balance of " + toUnits(balance));
+        }
+        append(memberId, FineLedgerEntry.EntryType.PAYMENT, -amountMinor, null, note);
+    }
+
+    /**
+     * Records a staff correction of {@code deltaMinor}. The caller passes the balance it was shown;
+     * if charges or payments were posted since, the adjustment is rejected instead of applied blind.
+     */
+    public synchronized void adjust(String memberId, long deltaMinor, long expectedBalanceMinor, String note) {
+        if (deltaMinor == 0) throw new IllegalArgumentException("Adjustment amount must not be zero");
+        long balance = balanceOf(memberId);
+        if (balance != expectedBalanceMinor) {
+            throw new StaleVersionException("Fine balance changed to " + toUnits(balance) + "; reload and try again");
+        }
+        if (balance + deltaMinor < 0) {
+            throw new IllegalArgumentException("Adjustment would make the fine balance negative");
+        }
+        append(memberId, FineLedgerEntry.EntryType.ADJUSTMENT, deltaMinor, null, note);
+    }
+
+    /**
+     * Appends an entry and moves the in-memory balance.
+     *
+     * @return false if an entry with the same reference was already recorded
+     */
+    public boolean append(String memberId, FineLedgerEntry.EntryType type, long amountMinor, String reference, String note) {
+        try {
+            mongoTemplate.insert(new FineLedgerEntry(memberId, type, amountMinor, reference, note));
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        apply(memberId, amountMinor);
+        // Batch responses carry the balance
+        memberBatchLoader.invalidate(memberId);
+        return true;
+    }
+
+    /**
+     * Charges the late fee of each returned borrowing. Called synchronously by every return path;
+     * the LATE_FEE reference makes a repeated call for the same borrowing a no-op.
+     */
+    public void chargeLateFees(Collection<Borrowing> returned) {
+        List<Borrowing> fees = returned.stream()
+                .filter(b -> b.getLateFee() > 0 && b.getMemberId() != null)
+                .collect(Collectors.toList());
+        if (fees.isEmpty()) return;
+
+        // Borrowings may hold the business memberId or the Mongo id; the ledger is keyed by Mongo id
+        Map<String, String> canonical = new HashMap<>();
+        for (Member m : memberRepository.findByMemberKeys(fees.stream().map(Borrowing::getMemberId).collect(Collectors.toSet()))) {
+            canonical.put(m.getId(), m.getId());
+            if (m.getMemberId() != null) canonical.put(m.getMemberId(), m.getId());
+        }
+        for (Borrowing b : fees) {
+            String memberId = canonical.get(b.getMemberId());
+            if (memberId == null) {
+                log.warn("Late fee for unknown member {} on borrowing {}", b.getMemberId(), b.getId());
+                continue;
+            }
+            append(memberId, FineLedgerEntry.EntryType.LATE_FEE, b.getLateFee() * MINOR_PER_UNIT,
+                    lateFeeReference(b.getId()), "Late return");
+        }
+    }
+
+    /** Posts late fees of recent returns that have no ledger entry, e.g. after a crash between the return and the charge. */
+    @Scheduled(fixedDelayString = "${app.fines.reconcile-interval-ms:3600000}", initialDelayString = "${app.fines.reconcile-interval-ms:3600000}")
+    public void reconcileLateFees() {
+        try {
+            Document state = mongoTemplate.findById(LATE_FEES_ID, Document.class, STATE);
+            if (state == null || state.get("since") == null) return;
+            LocalDate since = LocalDate.parse(state.getString("since"));
+            LocalDate window = LocalDate.now().minusDays(RECONCILE_DAYS);
+            Query returned = new Query(Criteria.where("status").is("RETURNED").and("lateFee").gt(0)
+                    .and("returnDate").gte(since.isAfter(window) ? since : window));
+            List<Borrowing> candidates = mongoTemplate.find(returned, Borrowing.class);
+            int posted = 0;
+            for (int from = 0; from < candidates.size(); from += RECONCILE_BATCH) {
+                List<Borrowing> batch = candidates.subList(from, Math.min(from + RECONCILE_BATCH, candidates.size()));
+                Set<String> charged = mongoTemplate.find(new Query(Criteria.where("reference")
+                                .in(batch.stream().map(b -> lateFeeReference(b.getId())).toList())), FineLedgerEntry.class)
+                        .stream().map(FineLedgerEntry::getReference).collect(Collectors.toSet());
+                List<Borrowing> missing = batch.stream().filter(b -> !charged.contains(lateFeeReference(b.getId()))).toList();
+                chargeLateFees(missing);
+                posted += missing.size();
+            }
+            if (posted > 0) log.warn("Posted {} late fees that were missing from the ledger", posted);
+        } catch (Exception e) {
+            log.warn("Could not reconcile late fees: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Folds entries older than a minute into the per-member snapshots and advances the cursor, in
+     * one transaction. The lag keeps entries still being written out of the snapshot.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.fines.compaction-interval-ms:3600000}")
+    public void compact() {
+        ObjectId cursor = loadCursor();
+        FineLedgerEntry newest = mongoTemplate.findOne(new Query(Criteria.where("createdAt").lt(LocalDateTime.now().minusMinutes(1)))
+                .with(Sort.by(Sort.Direction.DESC, "_id")), FineLedgerEntry.class);
+        if (newest == null) return;
+        ObjectId upper = new ObjectId(newest.getId());
+        if (cursor != null && upper.compareTo(cursor) <= 0) return;
+
+        Criteria range = cursor == null ? Criteria.where("_id").lte(upper) : Criteria.where("_id").gt(cursor).lte(upper);
+        Map<String, Long> sums = sumByMember(range);
+        LocalDateTime now = LocalDateTime.now();
+        sums.forEach((memberId, sum) -> mongoTemplate.upsert(new Query(Criteria.where("_id").is(memberId)),
+                new Update().inc("balanceMinor", sum).set("compactedAt", now), BALANCES));
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(CURSOR_ID)),
+                new Update().set("lastEntryId", upper).set("compactedAt", now), STATE);
+        log.info("Compacted fine ledger for {} members", sums.size());
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * MINOR_PER_UNIT);
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        try {
+            return amount.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amounts must have at most two decimal places");
+        }
+    }
+
+    private static String lateFeeReference(String borrowingId) {
+        return "LATE_FEE:" + borrowingId;
+    }
+
+    public static double toUnits(long minor) {
+        return minor / (double) MINOR_PER_UNIT;
+    }
+
+    private Map<String, Long> sumByMember(Criteria criteria) {
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group("memberId").sum("amountMinor").as("total"));
+        Map<String, Long> sums = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(agg, FineLedgerEntry.class, Document.class).getMappedResults()) {
+            if (row.get("_id") != null) sums.put(row.get("_id").toString(), ((Number) row.get("total")).longValue());
+        }
+        return sums;
+    }
+
+    private ObjectId loadCursor() {
+        Document state = mongoTemplate.findById(CURSOR_ID, Document.class, STATE);
+        return state != null ? state.getObjectId("lastEntryId") : null;
+    }
+
+    private void apply(String memberId, long delta) {
+        if (memberId == null || delta == 0) return;
+        // compute() serialises updates per member, so the owing set always matches the balance
+        balances.compute(memberId, (id, current) -> {
+            long next = (current == null ? 0 : current) + delta;
+            if (next > 0) owing.add(id); else owing.remove(id);
+            return next == 0 ? null : next;
+        });
+    }
+}
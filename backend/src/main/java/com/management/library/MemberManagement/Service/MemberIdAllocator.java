@@ -0,0 +1,117 @@
+package com.management.library.MemberManagement.Service;
+
+import com.management.library.MemberManagement.Entity.Member;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Hands out member IDs ({@code <prefix><year><seq>}, e.g. LIB2025001) without touching the
+ * members collection. Sequence numbers are reserved in blocks with an atomic $inc on a document in
+ * {@code counters}, so concurrent registrations, other instances and deletes can never produce the
+ * same ID twice; numbers left in a block at shutdown are simply skipped.
+ * <p>
+ * Blocks are reserved outside any surrounding transaction. Registrations roll back routinely (a
+ * duplicate email, for one), and a rolled-back $inc would hand the numbers still held in memory
+ * here to the next reservation on another instance.
+ */
+@Component
+public class MemberIdAllocator {
+
+    static final String COLLECTION = "counters";
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate outsideTransaction;
+    private final String prefix;
+    private final String fixedYear;
+    private final int blockSize;
+
+    private String blockPrefix;
+    private boolean seeded;
+    private long next = 1;
+    private long limit = 0;
+
+    public MemberIdAllocator(MongoTemplate mongoTemplate, PlatformTransactionManager transactionManager,
+                             @Value("${app.member.id.prefix:LIB}") String prefix,
+                             @Value("${app.member.id.year:}") String fixedYear,
+                             @Value("${app.member.id.block-size:20}") int blockSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.outsideTransaction = new TransactionTemplate(transactionManager);
+        this.outsideTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        this.prefix = prefix;
+        this.fixedYear = fixedYear;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public String nextId() {
+        return allocate(1).get(0);
+    }
+
+    /** Returns {@code count} new member IDs, reserving one larger block if the current one is too small. */
+    public synchronized List<String> allocate(int count) {
+        String idPrefix = prefix + (fixedYear == null || fixedYear.isBlank() ? Year.now().getValue() : fixedYear.trim());
+        if (!idPrefix.equals(blockPrefix)) {
+            // New year (or first call): numbering restarts under a new counter
+            blockPrefix = idPrefix;
+            seeded = false;
+            next = 1;
+            limit = 0;
+        }
+
+        List<String> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            if (next > limit) {
+                int size = Math.max(blockSize, count - ids.size());
+                outsideTransaction.executeWithoutResult(status -> reserve(idPrefix, size));
+            }
+            ids.add(String.format("%s%03d", idPrefix, next++));
+        }
+        return ids;
+    }
+
+    private void reserve(String idPrefix, int size) {
+        String key = "memberId:" + idPrefix;
+        if (!seeded) {
+            seed(key, idPrefix);
+            seeded = true;
+        }
+        Document counter = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(key)),
+                new Update().inc("seq", size),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, COLLECTION);
+        long high = ((Number) counter.get("seq")).longValue();
+        next = high - size + 1;
+        limit = high;
+    }
+
+    // Members registered before the counter existed keep their numbers; the counter starts after the highest one
+    private void seed(String key, String idPrefix) {
+        Query counter = new Query(Criteria.where("_id").is(key));
+        if (mongoTemplate.exists(counter, COLLECTION)) return;
+
+        Query existing = new Query(Criteria.where("memberId").regex("^" + Pattern.quote(idPrefix) + "\\d+$"));
+        existing.fields().include("memberId");
+        long highest;
+        try (Stream<Member> members = mongoTemplate.stream(existing, Member.class)) {
+            highest = members.mapToLong(m -> Long.parseLong(m.getMemberId().substring(idPrefix.length())))
+                    .max().orElse(0);
+        }
+        // $max keeps this safe when another instance seeds or reserves at the same time
+        mongoTemplate.upsert(counter, new Update().max("seq", highest), COLLECTION);
+    }
+}
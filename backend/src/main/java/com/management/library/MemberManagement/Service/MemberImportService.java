@@ -0,0 +1,316 @@
+package com.management.library.MemberManagement.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.library.MemberManagement.Dto.CreateMemberRequest;
+import com.management.library.MemberManagement.Dto.MemberImportResult;
+import com.management.library.MemberManagement.Entity.Member;
+import com.management.library.UserManagement.Service.EmailOutboxService;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk member import from a CSV (header row with CreateMemberRequest field names) or a JSON array
+ * of CreateMemberRequest objects. The input is streamed and handled in chunks: each chunk is
+ * validated in memory, checked for existing emails with one $in query, given a block of member
+ * IDs and written with one unordered bulk insert. Welcome emails go through the outbox, so the
+ * import never waits on mail delivery. Emails are compared case-insensitively, both within the
+ * import and against the unique {@value #EMAIL_INDEX} index on members, and every result
+ * reports its throughput so imports can be checked against the rows-per-second target.
+ */
+@Service
+public class MemberImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberImportService.class);
+    static final String EMAIL_INDEX = "email_ci";
+    // Case-insensitive comparison; lookups must use the same collation to be served by the index
+    private static final Collation EMAIL_COLLATION = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+    private static final int DUPLICATE_KEY = 11000;
+
+    // Normalized CSV header -> CreateMemberRequest property
+    private static final Map<String, String> COLUMNS = new HashMap<>();
+
+    static {
+        for (String property : List.of("firstName", "lastName", "email", "phoneNumber", "address",
+                "emergencyContact", "membershipType", "joiningDate", "expiryDate", "status",
+                "profilePictureUrl", "userId")) {
+            COLUMNS.put(property.toLowerCase(Locale.ROOT), property);
+        }
+        COLUMNS.put("phone", "phoneNumber");
+    }
+
+    private record Row(int number, CreateMemberRequest request, String error) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final MemberService memberService;
+    private final MemberIdAllocator memberIdAllocator;
+    private final AccountStatsService accountStats;
+    private final EmailOutboxService emailOutbox;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public MemberImportService(MongoTemplate mongoTemplate, MemberService memberService,
+                               MemberIdAllocator memberIdAllocator, AccountStatsService accountStats,
+                               EmailOutboxService emailOutbox, Validator validator, ObjectMapper objectMapper,
+                               @Value("${app.member.import.chunk-size:1000}") int chunkSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.memberService = memberService;
+        this.memberIdAllocator = memberIdAllocator;
+        this.accountStats = accountStats;
+        this.emailOutbox = emailOutbox;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureEmailIndex() {
+        try {
+            mongoTemplate.indexOps(Member.class).createIndex(new Index().on("email", Sort.Direction.ASC)
+                    .named(EMAIL_INDEX).unique().sparse().collation(EMAIL_COLLATION));
+        } catch (Exception e) {
+            // Typically existing members whose emails differ only in case; those must be merged first
+            log.warn("Could not create unique email index on members: {}", e.getMessage());
+        }
+    }
+
+    public MemberImportResult importCsv(InputStream input) throws IOException {
+        long started = System.nanoTime();
+        MemberImportResult result = new MemberImportResult();
+        Set<String> seenEmails = new HashSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        List<String> header = readRecord(reader);
+        if (header == null) return result;
+        header.set(0, header.get(0).replace("\uFEFF", ""));
+        List<String> properties = header.stream()
+                .map(h -> COLUMNS.get(h.replaceAll("[^A-Za-z]", "").toLowerCase(Locale.ROOT)))
+                .toList();
+        if (!properties.contains("email")) {
+            throw new IllegalArgumentException("CSV header must include an email column");
+        }
+
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int number = 0;
+        List<String> record;
+        while ((record = readRecord(reader)) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) continue;
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < Math.min(record.size(), properties.size()); i++) {
+                String value = record.get(i).trim();
+                if (properties.get(i) != null && !value.isEmpty()) {
+                    values.put(properties.get(i), isEnum(properties.get(i)) ? value.toUpperCase(Locale.ROOT) : value);
+                }
+            }
+            chunk.add(toRow(++number, values));
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, seenEmails, result);
+                chunk.clear();
+            }
+        }
+        importChunk(chunk, seenEmails, result);
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("CSV member import finished: {} imported, {} failed in {} ms ({} rows/s)", result.getImported(),
+                result.getFailed(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    public MemberImportResult importJson(InputStream input) throws IOException {
+        long started = System.nanoTime();
+        MemberImportResult result = new MemberImportResult();
+        Set<String> seenEmails = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int number = 0;
+        // Elements of the top-level array are read one at a time, never the whole document
+        try (MappingIterator<JsonNode> nodes = objectMapper.readerFor(JsonNode.class).readValues(input)) {
+            while (nodes.hasNextValue()) {
+                chunk.add(toRow(++number, nodes.nextValue()));
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, seenEmails, result);
+                    chunk.clear();
+                }
+            }
+        }
+        importChunk(chunk, seenEmails, result);
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("JSON member import finished: {} imported, {} failed in {} ms ({} rows/s)", result.getImported(),
+                result.getFailed(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private Row toRow(int number, Object source) {
+        try {
+            return new Row(number, objectMapper.convertValue(source, CreateMemberRequest.class), null);
+        } catch (IllegalArgumentException e) {
+            String message = e.getMessage() == null ? "Invalid record" : e.getMessage().lines().findFirst().orElse("");
+            return new Row(number, null, message);
+        }
+    }
+
+    private void importChunk(List<Row> chunk, Set<String> seenEmails, MemberImportResult result) {
+        if (chunk.isEmpty()) return;
+
+        List<Row> valid = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error() != null) {
+                result.addError(row.number(), null, row.error());
+                continue;
+            }
+            CreateMemberRequest request = row.request();
+            Set<ConstraintViolation<CreateMemberRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                result.addError(row.number(), request.getEmail(), violations.stream()
+                        .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; ")));
+                continue;
+            }
+            request.setEmail(request.getEmail().trim());
+            if (!seenEmails.add(request.getEmail().toLowerCase(Locale.ROOT))) {
+                result.addError(row.number(), request.getEmail(), "Duplicate email in import");
+                continue;
+            }
+            valid.add(row);
+        }
+        if (valid.isEmpty()) return;
+
+        // One round trip for the whole chunk instead of existsByEmail per member
+        Query existing = new Query(Criteria.where("email").in(valid.stream().map(r -> r.request().getEmail()).toList()))
+                .collation(EMAIL_COLLATION);
+        existing.fields().include("email");
+        Set<String> taken = mongoTemplate.find(existing, Member.class).stream()
+                .map(m -> m.getEmail().toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+
+        List<Row> rows = new ArrayList<>(valid.size());
+        for (Row row : valid) {
+            if (taken.contains(row.request().getEmail().toLowerCase(Locale.ROOT))) {
+                result.addError(row.number(), row.request().getEmail(), "Member with email already exists");
+            } else {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) return;
+
+        List<String> memberIds = memberIdAllocator.allocate(rows.size());
+        List<Member> members = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Member member = memberService.newMember(rows.get(i).request(), memberIds.get(i));
+            // Bulk inserts skip id generation and version seeding, so both are set here
+            member.setId(new ObjectId().toHexString());
+            member.setVersion(0L);
+            members.add(member);
+        }
+
+        Map<Integer, String> failed = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Member.class).insert(members).execute();
+        } catch (BulkOperationException e) {
+            log.warn("Member import chunk had {} failed inserts", e.getErrors().size());
+            for (BulkWriteError error : e.getErrors()) {
+                // Lost a race with another writer of the same email
+                failed.put(error.getIndex(), error.getCode() == DUPLICATE_KEY && error.getMessage().contains(EMAIL_INDEX)
+                        ? "Member with email already exists" : "Write failed: " + error.getMessage());
+            }
+        }
+
+        List<EmailOutboxService.WelcomeEmail> welcomes = new ArrayList<>(members.size());
+        int imported = 0;
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            if (failed.containsKey(i)) {
+                result.addError(rows.get(i).number(), member.getEmail(), failed.get(i));
+                continue;
+            }
+            imported++;
+            accountStats.memberAdded(member.getStatus(), member.getMembershipType());
+            String fullName = String.format("%s %s", member.getFirstName(), member.getLastName()).trim();
+            welcomes.add(new EmailOutboxService.WelcomeEmail("WELCOME:" + member.getId(), member.getEmail(),
+                    fullName, member.getMemberId(), member.getMembershipType().name()));
+        }
+        result.addImported(imported);
+
+        try {
+            emailOutbox.enqueueWelcomes(welcomes);
+        } catch (Exception e) {
+            log.warn("Imported {} members but failed to queue welcome emails: {}", imported, e.getMessage());
+        }
+    }
+
+    private static boolean isEnum(String property) {
+        return property.equals("membershipType") || property.equals("status");
+    }
+
+    /** Reads one RFC 4180 record (quoted fields may contain commas, quotes and line breaks); null at end of input. */
+    private static List<String> readRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') reader.reset();
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,99 @@
+package com.management.library.MemberManagement.Service;
+
+import com.management.library.BookManagement.entity.Book;
+import com.management.library.BookManagement.repository.BookRepository;
+import com.management.library.BorrowingReservation.entity.Borrowing;
+import com.management.library.BorrowingReservation.entity.Reservation;
+import com.management.library.BorrowingReservation.repository.BorrowingRepository;
+import com.management.library.BorrowingReservation.repository.ReservationRepository;
+import com.management.library.BorrowingReservation.service.ArchivalService;
+import com.management.library.MemberManagement.Dto.MemberProfileResponse;
+import com.management.library.MemberManagement.Dto.MemberResponse;
+import com.management.library.UserManagement.Dto.UserResponse;
+import com.management.library.UserManagement.Service.UserService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Assembles the member profile page in three parallel stages: member and user, then their loans
+ * and holds from both the hot collections and the archive, then one $in lookup for the books
+ * those reference. The profile is the member's full history, so archived records are included.
+ */
+@Service
+public class MemberProfileService {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberProfileService.class);
+
+    private final MemberService memberService;
+    private final UserService userService;
+    private final BorrowingRepository borrowingRepository;
+    private final ReservationRepository reservationRepository;
+    private final BookRepository bookRepository;
+    private final ArchivalService archivalService;
+    private final ExecutorService executor;
+
+    public MemberProfileService(MemberService memberService, UserService userService,
+                                BorrowingRepository borrowingRepository, ReservationRepository reservationRepository,
+                                BookRepository bookRepository, ArchivalService archivalService,
+                                @Value("${app.profile.parallelism:8}") int parallelism) {
+        this.memberService = memberService;
+        this.userService = userService;
+        this.borrowingRepository = borrowingRepository;
+        this.reservationRepository = reservationRepository;
+        this.bookRepository = bookRepository;
+        this.archivalService = archivalService;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public MemberProfileResponse getProfileByUserId(String userId) {
+        log.info("Loading profile for user ID: {}", userId);
+        try {
+            CompletableFuture<MemberResponse> memberF = CompletableFuture.supplyAsync(() -> memberService.getMemberByUserId(userId), executor);
+            CompletableFuture<UserResponse> userF = CompletableFuture.supplyAsync(() -> userService.getUserById(userId), executor);
+            MemberResponse member = memberF.join();
+
+            // Loans and holds may reference the member by business id or by Mongo id
+            Set<String> keys = new HashSet<>();
+            keys.add(member.getId());
+            if (member.getMemberId() != null) keys.add(member.getMemberId());
+            CompletableFuture<List<Borrowing>> loansF = CompletableFuture.supplyAsync(() -> borrowingRepository.findByMemberIdIn(keys), executor);
+            CompletableFuture<List<Reservation>> holdsF = CompletableFuture.supplyAsync(() -> reservationRepository.findByMemberIdIn(keys), executor);
+            CompletableFuture<List<Borrowing>> archivedLoansF = CompletableFuture.supplyAsync(() -> archivalService.findArchivedBorrowings(keys), executor);
+            CompletableFuture<List<Reservation>> archivedHoldsF = CompletableFuture.supplyAsync(() -> archivalService.findArchivedReservations(keys), executor);
+            List<Borrowing> loans = archivalService.mergeBorrowings(loansF.join(), archivedLoansF.join());
+            List<Reservation> holds = archivalService.mergeReservations(holdsF.join(), archivedHoldsF.join());
+
+            Set<String> bookIds = new HashSet<>();
+            Stream.concat(loans.stream().map(Borrowing::getBookId), holds.stream().map(Reservation::getBookId))
+                    .filter(id -> id != null)
+                    .forEach(bookIds::add);
+            Map<String, Book> books = new HashMap<>();
+            bookRepository.findAllById(bookIds).forEach(b -> books.put(b.getId(), b));
+
+            return new MemberProfileResponse(member, userF.join(), loans, holds, books);
+        } catch (CompletionException e) {
+            // Surface the original exception (e.g. ResourceNotFoundException) to the exception handler
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
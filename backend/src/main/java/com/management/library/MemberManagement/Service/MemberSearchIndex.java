@@ -0,0 +1,96 @@
+package com.management.library.MemberManagement.Service;
+
+import com.management.library.Config.SearchKeys;
+import com.management.library.MemberManagement.Entity.Member;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Prefix search over members. Every save stores {@link SearchKeys} for the name, email, phone
+ * number and member ID in {@code searchKeys}, which carries a multikey index, so a search is an
+ * index lookup on the query terms rather than five case-insensitive regex scans.
+ */
+@Component
+public class MemberSearchIndex implements BeforeConvertCallback<Member> {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberSearchIndex.class);
+    private static final int BACKFILL_BATCH = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxResults;
+
+    public MemberSearchIndex(MongoTemplate mongoTemplate,
+                             @Value("${app.search.max-results:100}") int maxResults) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxResults = maxResults;
+    }
+
+    @Override
+    public Member onBeforeConvert(Member member, String collection) {
+        member.setSearchKeys(keysFor(member));
+        return member;
+    }
+
+    public List<Member> search(String query) {
+        List<String> terms = SearchKeys.queryTerms(query);
+        if (terms.isEmpty()) return List.of();
+        return mongoTemplate.find(new Query(Criteria.where("searchKeys").all(terms)).limit(maxResults), Member.class);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            mongoTemplate.indexOps(Member.class).createIndex(new Index().on("searchKeys", Sort.Direction.ASC));
+            backfill();
+        } catch (Exception e) {
+            log.warn("Could not prepare member search index: {}", e.getMessage());
+        }
+    }
+
+    // Members saved before the index existed get their keys written in bulk, without touching the version
+    private void backfill() {
+        Query missing = new Query(Criteria.where("searchKeys").exists(false));
+        missing.fields().include("memberId", "firstName", "lastName", "email", "phoneNumber");
+        long updated = 0;
+        try (Stream<Member> members = mongoTemplate.stream(missing, Member.class)) {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Member.class);
+            int pending = 0;
+            for (Member member : (Iterable<Member>) members::iterator) {
+                ops.updateOne(new Query(Criteria.where("_id").is(member.getId())),
+                        new Update().set("searchKeys", keysFor(member)));
+                if (++pending == BACKFILL_BATCH) {
+                    updated += ops.execute().getModifiedCount();
+                    ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Member.class);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) updated += ops.execute().getModifiedCount();
+        }
+        if (updated > 0) log.info("Indexed {} members for search", updated);
+    }
+
+    private static List<String> keysFor(Member member) {
+        return new SearchKeys()
+                .words(member.getFirstName())
+                .words(member.getLastName())
+                .email(member.getEmail())
+                .phone(member.getPhoneNumber())
+                .identifier(member.getMemberId())
+                .build();
+    }
+}
@@ -1,17 +1,25 @@
 package com.management.library.MemberManagement.Service;
 
+import com.management.library.BorrowingReservation.service.ActiveLoanRegistry;
+import com.management.library.Config.BatchLoader;
+import com.management.library.Config.OptimisticRetryExecutor;
 import com.management.library.MemberManagement.Dto.*;
 import com.management.library.MemberManagement.Entity.Member;
 import com.management.library.MemberManagement.Repository.MemberRepository;
 import com.management.library.UserManagement.Exception.*;
-import com.management.library.UserManagement.Service.EmailService;
+import com.management.library.UserManagement.Service.EmailOutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -20,14 +28,33 @@ public class MemberService {
 
     private static final Logger log = LoggerFactory.getLogger(MemberService.class);
     private final MemberRepository memberRepository;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutbox;
+    private final ActiveLoanRegistry activeLoanRegistry;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final FineLedgerService fineLedger;
+    private final AccountStatsService accountStats;
+    private final MemberSearchIndex searchIndex;
+    private final MemberIdAllocator memberIdAllocator;
+    private final BatchLoader<MemberResponse> memberBatchLoader;
 
     // Constructor
-    public MemberService(MemberRepository memberRepository, EmailService emailService) {
+    public MemberService(MemberRepository memberRepository, EmailOutboxService emailOutbox,
+                         ActiveLoanRegistry activeLoanRegistry, OptimisticRetryExecutor retryExecutor,
+                         FineLedgerService fineLedger, AccountStatsService accountStats,
+                         MemberSearchIndex searchIndex, MemberIdAllocator memberIdAllocator,
+                         BatchLoader<MemberResponse> memberBatchLoader) {
         this.memberRepository = memberRepository;
-        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.activeLoanRegistry = activeLoanRegistry;
+        this.retryExecutor = retryExecutor;
+        this.fineLedger = fineLedger;
+        this.accountStats = accountStats;
+        this.searchIndex = searchIndex;
+        this.memberIdAllocator = memberIdAllocator;
+        this.memberBatchLoader = memberBatchLoader;
     }
 
+    @Transactional
     public MemberResponse createMember(CreateMemberRequest request) {
         log.info("Creating member with email: {}", request.getEmail());
 
@@ -39,59 +66,41 @@ public class MemberService {
         // Generate unique member ID
         String memberId = generateMemberId();
 
-        Member member = new Member();
-        member.setMemberId(memberId);
-        member.setUserId(request.getUserId());
-        member.setFirstName(request.getFirstName());
-        member.setLastName(request.getLastName());
-        member.setEmail(request.getEmail());
-        member.setPhoneNumber(request.getPhoneNumber());
-        member.setAddress(request.getAddress());
-        member.setEmergencyContact(request.getEmergencyContact());
-        member.setMembershipType(request.getMembershipType());
-        member.setJoiningDate(request.getJoiningDate() != null ? request.getJoiningDate() : LocalDate.now());
-        member.setExpiryDate(request.getExpiryDate() != null ? request.getExpiryDate() : calculateExpiryDate(member.getJoiningDate()));
-        member.setStatus(request.getStatus());
-        member.setBorrowingLimit(calculateBorrowingLimit(request.getMembershipType()));
-        member.setFineAmount(0.0);
-        member.setProfilePictureUrl(request.getProfilePictureUrl());
-        member.setCreatedAt(LocalDateTime.now());
-        member.setUpdatedAt(LocalDateTime.now());
-
-        Member savedMember = memberRepository.save(member);
-        log.info("Member created successfully with ID: {}", savedMember.getMemberId());
-
-        // Fire-and-forget welcome email (do not fail the request if email sending fails)
-        try {
-            if (savedMember.getEmail() != null && !savedMember.getEmail().isBlank()) {
-                String fullName = String.format("%s %s", 
-                        savedMember.getFirstName() != null ? savedMember.getFirstName() : "", 
-                        savedMember.getLastName() != null ? savedMember.getLastName() : "").trim();
-                emailService.sendMemberWelcomeEmail(
-                        savedMember.getEmail(),
-                        fullName.isEmpty() ? savedMember.getMemberId() : fullName,
-                        savedMember.getMemberId(),
-                        savedMember.getMembershipType() != null ? savedMember.getMembershipType().name() : "BASIC"
-                );
-            }
-        } catch (Exception ex) {
-            log.warn("Member created but failed to send welcome email: {}", ex.getMessage());
+        Member savedMember = saveWithUniqueEmail(newMember(request, memberId));
+
+        // Same transaction as the member insert, so a member never exists without its welcome email;
+        // delivery failures are retried by the outbox workers, not surfaced here
+        if (savedMember.getEmail() != null && !savedMember.getEmail().isBlank()) {
+            String fullName = String.format("%s %s", 
+                    savedMember.getFirstName() != null ? savedMember.getFirstName() : "", 
+                    savedMember.getLastName() != null ? savedMember.getLastName() : "").trim();
+            emailOutbox.enqueueWelcome(
+                    "WELCOME:" + savedMember.getId(),
+                    savedMember.getEmail(),
+                    fullName.isEmpty() ? savedMember.getMemberId() : fullName,
+                    savedMember.getMemberId(),
+                    savedMember.getMembershipType() != null ? savedMember.getMembershipType().name() : "BASIC"
+            );
         }
+        accountStats.memberAdded(savedMember.getStatus(), savedMember.getMembershipType());
+        log.info("Member created successfully with ID: {}", savedMember.getMemberId());
 
-        return MemberResponse.fromEntity(savedMember);
+        return toResponse(savedMember);
     }
 
+    @Transactional
     public MemberResponse createMemberFromUser(String userId, String firstName, String lastName, String email) {
         return createMemberFromUser(userId, firstName, lastName, email, Member.MembershipType.BASIC);
     }
 
+    @Transactional
     public MemberResponse createMemberFromUser(String userId, String firstName, String lastName, String email, Member.MembershipType membershipType) {
         log.info("Auto-creating member for user: {} with membership type: {}", userId, membershipType);
 
         // Check if member already exists for this user
         if (memberRepository.existsByUserId(userId)) {
             Optional<Member> existingMember = memberRepository.findByUserId(userId);
-            return existingMember.map(MemberResponse::fromEntity).orElse(null);
+            return existingMember.map(this::toResponse).orElse(null);
         }
 
         CreateMemberRequest request = new CreateMemberRequest();
@@ -111,26 +120,25 @@ public class MemberService {
         Member member = memberRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
 
-        return MemberResponse.fromEntity(member);
+        return toResponse(member);
+    }
+
+    public Map<String, MemberResponse> getMembersByIds(Collection<String> ids) {
+        log.info("Fetching {} members by ID", ids.size());
+
+        return memberRepository.findAllById(ids).stream()
+                .map(this::toResponse)
+                .collect(Collectors.toMap(MemberResponse::getId, m -> m));
     }
 
     public MemberResponse getMemberByMemberId(String memberId) {
         log.info("Fetching member with member ID: {}", memberId);
 
-        // Handle potential duplicates by finding the most recent active member
-        List<Member> members = memberRepository.findAllByMemberId(memberId);
-        
-        if (members.isEmpty()) {
-            throw new ResourceNotFoundException("Member not found with member ID: " + memberId);
-        }
-        
-        // If multiple members exist, prioritize active members and get the most recent one
-        Member member = members.stream()
-                .filter(m -> m.getStatus() == Member.MemberStatus.ACTIVE)
-                .findFirst()
-                .orElse(members.get(0)); // Fallback to first member if no active member found
+        // memberId is uniquely indexed and allocated by MemberIdAllocator, so there is at most one match
+        Member member = memberRepository.findByMemberId(memberId)
+                .orElseThrow(() -> new ResourceNotFoundException("Member not found with member ID: " + memberId));
 
-        return MemberResponse.fromEntity(member);
+        return toResponse(member);
     }
 
     public MemberResponse getMemberByUserId(String userId) {
@@ -139,7 +147,7 @@ public class MemberService {
         Member member = memberRepository.findByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Member not found for user ID: " + userId));
 
-        return MemberResponse.fromEntity(member);
+        return toResponse(member);
     }
 
     public List<MemberResponse> getAllMembers() {
@@ -147,7 +155,7 @@ public class MemberService {
 
         List<Member> members = memberRepository.findAll();
         return members.stream()
-                .map(MemberResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -156,7 +164,7 @@ public class MemberService {
 
         List<Member> members = memberRepository.findByMembershipType(membershipType);
         return members.stream()
-                .map(MemberResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -165,24 +173,32 @@ public class MemberService {
 
         List<Member> members = memberRepository.findByStatus(status);
         return members.stream()
-                .map(MemberResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
     public List<MemberResponse> searchMembers(String query) {
         log.info("Searching members with query: {}", query);
 
-        List<Member> members = memberRepository.findBySearchQuery(query);
+        List<Member> members = searchIndex.search(query);
         return members.stream()
-                .map(MemberResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
     public MemberResponse updateMember(String id, UpdateMemberRequest request) {
         log.info("Updating member with ID: {}", id);
 
+        // Each attempt re-reads the member so a retry applies the changes to the latest version
+        return retryExecutor.execute("member.update", () -> applyUpdate(id, request));
+    }
+
+    private MemberResponse applyUpdate(String id, UpdateMemberRequest request) {
         Member member = memberRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
+        retryExecutor.checkVersion(request.getVersion(), member.getVersion(), "Member " + id);
+        Member.MemberStatus previousStatus = member.getStatus();
+        Member.MembershipType previousType = member.getMembershipType();
 
         // Update fields if provided
         if (request.getFirstName() != null) {
@@ -219,19 +235,19 @@ public class MemberService {
         if (request.getBorrowingLimit() > 0) {
             member.setBorrowingLimit(request.getBorrowingLimit());
         }
-        if (request.getFineAmount() >= 0) {
-            member.setFineAmount(request.getFineAmount());
-        }
         if (request.getProfilePictureUrl() != null) {
             member.setProfilePictureUrl(request.getProfilePictureUrl());
         }
 
         member.setUpdatedAt(LocalDateTime.now());
 
-        Member updatedMember = memberRepository.save(member);
+        Member updatedMember = saveWithUniqueEmail(member);
+        memberBatchLoader.invalidate(id);
+        accountStats.memberChanged(previousStatus, previousType, updatedMember.getStatus(), updatedMember.getMembershipType());
+        activeLoanRegistry.refresh(updatedMember);
         log.info("Member updated successfully with ID: {}", updatedMember.getMemberId());
 
-        return MemberResponse.fromEntity(updatedMember);
+        return toResponse(updatedMember);
     }
 
     public void deleteMember(String id) {
@@ -241,39 +257,83 @@ public class MemberService {
                 .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
 
         memberRepository.delete(member);
+        memberBatchLoader.invalidate(id);
+        accountStats.memberRemoved(member.getStatus(), member.getMembershipType());
         log.info("Member deleted successfully with ID: {}", member.getMemberId());
     }
 
     public void suspendMember(String id) {
         log.info("Suspending member with ID: {}", id);
 
-        Member member = memberRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
-
-        member.setStatus(Member.MemberStatus.SUSPENDED);
-        member.setUpdatedAt(LocalDateTime.now());
-
-        memberRepository.save(member);
+        Member member = changeStatus(id, Member.MemberStatus.SUSPENDED);
         log.info("Member suspended successfully with ID: {}", member.getMemberId());
     }
 
     public void activateMember(String id) {
         log.info("Activating member with ID: {}", id);
 
-        Member member = memberRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
-
-        member.setStatus(Member.MemberStatus.ACTIVE);
-        member.setUpdatedAt(LocalDateTime.now());
-
-        memberRepository.save(member);
+        Member member = changeStatus(id, Member.MemberStatus.ACTIVE);
         log.info("Member activated successfully with ID: {}", member.getMemberId());
     }
 
     // Utility methods
+    private MemberResponse toResponse(Member member) {
+        MemberResponse response = MemberResponse.fromEntity(member);
+        response.setFineAmount(FineLedgerService.toUnits(fineLedger.balanceOf(member.getId())));
+        return response;
+    }
+
+    private Member changeStatus(String id, Member.MemberStatus status) {
+        return retryExecutor.execute("member.status", () -> {
+            Member member = memberRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
+            Member.MemberStatus previousStatus = member.getStatus();
+            member.setStatus(status);
+            member.setUpdatedAt(LocalDateTime.now());
+            Member saved = memberRepository.save(member);
+            memberBatchLoader.invalidate(id);
+            accountStats.memberChanged(previousStatus, saved.getMembershipType(), status, saved.getMembershipType());
+            return saved;
+        });
+    }
+
+    // The check above is case-sensitive; the case-insensitive unique index has the final word
+    private Member saveWithUniqueEmail(Member member) {
+        try {
+            return memberRepository.save(member);
+        } catch (DuplicateKeyException e) {
+            if (e.getMessage() != null && e.getMessage().contains(MemberImportService.EMAIL_INDEX)) {
+                throw new DuplicateResourceException("Member with email already exists: " + member.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    // Shared with MemberImportService so both paths build members the same way
+    Member newMember(CreateMemberRequest request, String memberId) {
+        Member member = new Member();
+        member.setMemberId(memberId);
+        member.setUserId(request.getUserId());
+        member.setFirstName(request.getFirstName());
+        member.setLastName(request.getLastName());
+        member.setEmail(request.getEmail());
+        member.setPhoneNumber(request.getPhoneNumber());
+        member.setAddress(request.getAddress());
+        member.setEmergencyContact(request.getEmergencyContact());
+        member.setMembershipType(request.getMembershipType());
+        member.setJoiningDate(request.getJoiningDate() != null ? request.getJoiningDate() : LocalDate.now());
+        member.setExpiryDate(request.getExpiryDate() != null ? request.getExpiryDate() : calculateExpiryDate(member.getJoiningDate()));
+        member.setStatus(request.getStatus());
+        member.setBorrowingLimit(calculateBorrowingLimit(request.getMembershipType()));
+        member.setFineAmount(0.0);
+        member.setProfilePictureUrl(request.getProfilePictureUrl());
+        member.setCreatedAt(LocalDateTime.now());
+        member.setUpdatedAt(LocalDateTime.now());
+        return member;
+    }
+
     private String generateMemberId() {
-        long count = memberRepository.count();
-        return String.format("LIB2025%03d", count + 1);
+        return memberIdAllocator.nextId();
     }
 
     private LocalDate calculateExpiryDate(LocalDate joiningDate) {
@@ -297,28 +357,62 @@ public class MemberService {
 
     // Statistics methods
     public long getTotalMembersCount() {
-        return memberRepository.count();
+        return accountStats.memberCount();
     }
 
     public long getMemberCountByMembershipType(Member.MembershipType membershipType) {
-        return memberRepository.countByMembershipType(membershipType);
+        return accountStats.memberCountByMembershipType(membershipType);
     }
 
     public long getMemberCountByStatus(Member.MemberStatus status) {
-        return memberRepository.countByStatus(status);
+        return accountStats.memberCountByStatus(status);
+    }
+
+    public Map<String, Object> getMemberStats() {
+        return accountStats.getMemberStats();
     }
 
     public List<MemberResponse> getMembersExpiringBefore(LocalDate date) {
         List<Member> members = memberRepository.findMembersExpiringBefore(date);
         return members.stream()
-                .map(MemberResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
+    public Map<String, Object> getFineAccount(String id) {
+        Member member = memberRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
+        Map<String, Object> account = new LinkedHashMap<>();
+        account.put("memberId", member.getMemberId());
+        account.put("balance", FineLedgerService.toUnits(fineLedger.balanceOf(member.getId())));
+        account.put("entries", fineLedger.entriesOf(member.getId()));
+        return account;
+    }
+
+    public MemberResponse recordFinePayment(String id, FinePaymentRequest request) {
+        Member member = memberRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
+        fineLedger.recordPayment(member.getId(), FineLedgerService.toMinor(request.getAmount()),
+                request.getNote() != null ? request.getNote() : "Payment");
+        log.info("Recorded fine payment of {} for member {}", request.getAmount(), member.getMemberId());
+        return toResponse(member);
+    }
+
+    // Staff corrections go through here, never through a member edit, so concurrent charges are not overwritten
+    public MemberResponse adjustFine(String id, FineAdjustmentRequest request) {
+        Member member = memberRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Member not found with ID: " + id));
+        fineLedger.adjust(member.getId(), FineLedgerService.toMinor(request.getAmount()),
+                FineLedgerService.toMinor(request.getExpectedBalance()),
+                request.getNote() != null ? request.getNote() : "Adjusted by staff");
+        log.info("Adjusted fine of member {} by {}", member.getMemberId(), request.getAmount());
+        return toResponse(member);
+    }
+
     public List<MemberResponse> getMembersWithFines() {
-        List<Member> members = memberRepository.findMembersWithFines();
+        List<Member> members = memberRepository.findAllById(fineLedger.membersOwing());
         return members.stream()
-                .map(MemberResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 }
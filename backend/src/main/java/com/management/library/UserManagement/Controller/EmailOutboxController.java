@@ -0,0 +1,46 @@
+package com.management.library.UserManagement.Controller;
+
+import com.management.library.UserManagement.Dto.ApiResponse;
+import com.management.library.UserManagement.Entity.EmailOutboxMessage;
+import com.management.library.UserManagement.Exception.ResourceNotFoundException;
+import com.management.library.UserManagement.Service.EmailOutboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/email-outbox")
+@CrossOrigin(origins = "*")
+public class EmailOutboxController {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxController.class);
+    private final EmailOutboxService emailOutboxService;
+
+    public EmailOutboxController(EmailOutboxService emailOutboxService) {
+        this.emailOutboxService = emailOutboxService;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getStats() {
+        return ResponseEntity.ok(ApiResponse.success("Email outbox statistics retrieved successfully", emailOutboxService.getStats()));
+    }
+
+    @GetMapping("/dead")
+    public ResponseEntity<ApiResponse<List<EmailOutboxMessage>>> getDeadLetters(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ApiResponse.success("Dead-lettered emails retrieved successfully", emailOutboxService.getDeadLetters(limit)));
+    }
+
+    @PostMapping("/{id}/requeue")
+    public ResponseEntity<ApiResponse<Object>> requeue(@PathVariable String id) {
+        log.info("POST /api/email-outbox/{}/requeue - Re-queuing dead-lettered email", id);
+
+        if (!emailOutboxService.requeue(id)) {
+            throw new ResourceNotFoundException("No dead-lettered email with ID: " + id);
+        }
+        return ResponseEntity.ok(ApiResponse.success("Email re-queued"));
+    }
+}
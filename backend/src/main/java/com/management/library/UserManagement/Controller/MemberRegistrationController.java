@@ -1,12 +1,17 @@
 package com.management.library.UserManagement.Controller;
 
+import com.management.library.Config.SessionTokenService;
 import com.management.library.UserManagement.Dto.ApiResponse;
 import com.management.library.MemberManagement.Entity.Member;
 import com.management.library.MemberManagement.Dto.MemberResponse;
 import com.management.library.UserManagement.Entity.User;
-import com.management.library.UserManagement.Service.EmailService;
 import com.management.library.MemberManagement.Service.MemberService;
+import com.management.library.UserManagement.Exception.ResourceNotFoundException;
+import com.management.library.UserManagement.Exception.TooManyRequestsException;
 import com.management.library.UserManagement.Repository.UserRepository;
+import com.management.library.UserManagement.Service.LoginThrottle;
+import com.management.library.UserManagement.Service.PasswordVerifier;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -28,7 +33,13 @@ public class MemberRegistrationController {
     private UserRepository userRepository;
 
     @Autowired
-    private EmailService emailService;
+    private PasswordVerifier passwordVerifier;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
 
     @Value("${app.name:SARASAVI}")
     private String appName;
@@ -81,19 +92,7 @@ public class MemberRegistrationController {
                 membershipTypeEnum
             );
 
-            // Send welcome email with membershipType
-            try {
-                emailService.sendMemberWelcomeEmail(
-                    user.getEmail(), 
-                    user.getFirstName(), 
-                    memberResponse.getMemberId(), 
-                    memberResponse.getMembershipType().toString()
-                );
-            } catch (Exception e) {
-                // Log email error but don't fail the registration
-                System.err.println("Failed to send welcome email: " + e.getMessage());
-            }
-
+            // The welcome email is queued by createMemberFromUser
             return ResponseEntity.ok(ApiResponse.success("Member registration successful", memberResponse));
 
         } catch (Exception e) {
@@ -104,7 +103,8 @@ public class MemberRegistrationController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> loginWithMemberId(@RequestBody Map<String, String> request) {
+    public ResponseEntity<ApiResponse<Map<String, Object>>> loginWithMemberId(@RequestBody Map<String, String> request,
+                                                                              HttpServletRequest httpRequest) {
         try {
             String memberId = request.get("memberId");
             String password = request.get("password");
@@ -114,11 +114,16 @@ public class MemberRegistrationController {
                     .body(ApiResponse.error("Member ID and password are required"));
             }
 
+            loginThrottle.acquire(memberId, loginThrottle.clientIp(httpRequest));
+
             // Get member by member ID
-            MemberResponse memberResponse = memberService.getMemberByMemberId(memberId.trim().toUpperCase());
-            if (memberResponse == null) {
+            MemberResponse memberResponse;
+            try {
+                memberResponse = memberService.getMemberByMemberId(memberId.trim().toUpperCase());
+            } catch (ResourceNotFoundException e) {
+                loginThrottle.recordFailure(memberId);
                 return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Invalid member ID"));
+                    .body(ApiResponse.error("Invalid member ID or password"));
             }
 
             // Get user details using userId from member
@@ -130,6 +135,12 @@ public class MemberRegistrationController {
 
             User user = userOptional.get();
 
+            if (!passwordVerifier.matches(password, user.getPassword())) {
+                loginThrottle.recordFailure(memberId);
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid member ID or password"));
+            }
+
             // Check if member is active
             if (memberResponse.getStatus() != Member.MemberStatus.ACTIVE) {
                 return ResponseEntity.badRequest()
@@ -142,11 +153,14 @@ public class MemberRegistrationController {
                 "firstName", user.getFirstName(),
                 "lastName", user.getLastName(),
                 "email", user.getEmail(),
-                "membershipType", memberResponse.getMembershipType()
+                "membershipType", memberResponse.getMembershipType(),
+                "sessionToken", sessionTokenService.issue(user)
             );
 
             return ResponseEntity.ok(ApiResponse.success("Login successful", loginData));
 
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -1,18 +1,23 @@
 package com.management.library.UserManagement.Controller;
 
+import com.management.library.Config.BatchLoader;
+import com.management.library.Config.SessionTokenFilter;
+import com.management.library.Config.SessionTokenService;
 import com.management.library.UserManagement.Dto.*;
 import com.management.library.UserManagement.Entity.User;
+import com.management.library.UserManagement.Service.LoginThrottle;
 import com.management.library.UserManagement.Service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 
 @RestController
 @RequestMapping("/api/users")
@@ -21,10 +26,17 @@ public class UserController {
 
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
+    private final BatchLoader<UserResponse> userBatchLoader;
+    private final LoginThrottle loginThrottle;
+    private final int maxBatchIds;
 
     // Manual constructor (replaces @RequiredArgsConstructor)
-    public UserController(UserService userService) {
+    public UserController(UserService userService, BatchLoader<UserResponse> userBatchLoader, LoginThrottle loginThrottle,
+                          @Value("${app.batch.max-ids:100}") int maxBatchIds) {
         this.userService = userService;
+        this.userBatchLoader = userBatchLoader;
+        this.loginThrottle = loginThrottle;
+        this.maxBatchIds = maxBatchIds;
     }
 
     @PostMapping
@@ -42,10 +54,11 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<UserResponse>> loginUser(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<ApiResponse<UserResponse>> loginUser(@Valid @RequestBody LoginRequest request,
+                                                               HttpServletRequest httpRequest) {
         log.info("POST /api/users/login - Login attempt for username: {}", request.getUsername());
 
-        UserResponse userResponse = userService.loginUser(request);
+        UserResponse userResponse = userService.loginUser(request, loginThrottle.clientIp(httpRequest));
         ApiResponse<UserResponse> response = new ApiResponse<>(
                 true,
                 "Login successful",
@@ -56,6 +69,28 @@ public class UserController {
     }
 
 
+    // Identity from the session token alone; no user lookup
+    @GetMapping("/session")
+    public ResponseEntity<ApiResponse<SessionTokenService.SessionPrincipal>> getSession(
+            @RequestAttribute(name = SessionTokenFilter.PRINCIPAL_ATTRIBUTE, required = false)
+            SessionTokenService.SessionPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error("Not logged in"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Session is valid", principal));
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<ApiResponse<List<UserResponse>>> getUsersByIds(@RequestParam List<String> ids) {
+        log.info("GET /api/users/batch - Fetching {} users by ID", ids.size());
+
+        if (ids.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " IDs can be requested at once");
+        }
+        List<UserResponse> users = userBatchLoader.getAll(ids);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Users retrieved successfully", users));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<UserResponse>> getUserById(@PathVariable String id) {
         log.info("GET /api/users/{} - Fetching user by ID", id);
@@ -242,10 +277,7 @@ public class UserController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> getUserStats() {
         log.info("GET /api/users/stats - Fetching user statistics");
 
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalUsers", userService.getAllUsers().size());
-        stats.put("activeUsers", userService.getUserCountByStatus(User.UserStatus.ACTIVATED));
-        stats.put("deactivatedUsers", userService.getUserCountByStatus(User.UserStatus.DEACTIVATED));
+        Map<String, Object> stats = userService.getUserStats();
 
         ApiResponse<Map<String, Object>> response = new ApiResponse<>(
                 true,
@@ -1,5 +1,6 @@
 package com.management.library.UserManagement.Dto;
 
+import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
@@ -12,6 +13,11 @@ public class ResetPasswordRequest {
     @Size(min = 6, message = "Password must be at least 6 characters")
     private String newPassword;
 
+    // Attempts are counted against this account's token
+    @NotBlank(message = "Email is required")
+    @Email(message = "Email should be valid")
+    private String email;
+
     public ResetPasswordRequest() {}
 
     public ResetPasswordRequest(String token, String newPassword) {
@@ -34,7 +40,12 @@ public class ResetPasswordRequest {
     public void setNewPassword(String newPassword) {
         this.newPassword = newPassword;
     }
-}
-
 
+    public String getEmail() {
+        return email;
+    }
 
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
@@ -16,6 +16,7 @@ public class UserResponse {
     private User.UserStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private String sessionToken; // only set on login
 
     // Default constructor
     public UserResponse() {
@@ -134,4 +135,12 @@ public class UserResponse {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    public void setSessionToken(String sessionToken) {
+        this.sessionToken = sessionToken;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.management.library.UserManagement.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * An email waiting to be delivered by the outbox workers. Request handlers only insert these;
+ * delivery, retries and dead-lettering happen in the background.
+ */
+@Document(collection = "email_outbox")
+public class EmailOutboxMessage {
+
+    public enum Kind {
+        WELCOME, SIMPLE, PASSWORD_RESET
+    }
+
+    public enum Status {
+        PENDING, SENDING, SENT, DEAD
+    }
+
+    @Id
+    private String id;
+
+    // Unique per logical email (e.g. WELCOME:<memberId>) so the same message is never queued twice
+    @Indexed(unique = true)
+    private String messageKey;
+
+    private Kind kind;
+
+    private String toEmail;
+
+    private String subject;
+
+    private String body;
+
+    // Template arguments for WELCOME and PASSWORD_RESET messages; a reset code is unset once delivery ends
+    private Map<String, String> params;
+
+    private Status status;
+
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    // Lease held by the worker while SENDING; an expired lease is picked up again
+    private LocalDateTime lockedUntil;
+
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    // Constructors
+    public EmailOutboxMessage() {
+    }
+
+    public EmailOutboxMessage(String messageKey, Kind kind, String toEmail, String subject, String body, Map<String, String> params) {
+        this.messageKey = messageKey;
+        this.kind = kind;
+        this.toEmail = toEmail;
+        this.subject = subject;
+        this.body = body;
+        this.params = params;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public void setMessageKey(String messageKey) {
+        this.messageKey = messageKey;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public String getToEmail() {
+        return toEmail;
+    }
+
+    public void setToEmail(String toEmail) {
+        this.toEmail = toEmail;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
@@ -0,0 +1,77 @@
+package com.management.library.UserManagement.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pending password reset. The id is an HMAC of the user id and the emailed code, so the code
+ * itself is never stored; a TTL index on expiresAt removes unused tokens and userId is unique (one live token per user).
+ */
+@Document(collection = "password_reset_tokens")
+public class PasswordResetToken {
+
+    @Id
+    private String id; // hex HMAC-SHA256 of userId and the reset code
+
+    private String userId;
+
+    private int attempts;
+
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public PasswordResetToken() {
+    }
+
+    public PasswordResetToken(String id, String userId, LocalDateTime expiresAt) {
+        this.id = id;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document(collection = "users")
 public class User {
@@ -33,9 +34,8 @@ public class User {
 
     private UserStatus status = UserStatus.ACTIVATED;
 
-    // Password reset fields
-    private String resetToken;
-    private LocalDateTime resetTokenExpiry;
+    // Normalized prefixes/n-grams of the searchable fields, maintained by the search index on every save
+    private List<String> searchKeys;
 
     @CreatedDate
     private LocalDateTime createdAt;
@@ -96,14 +96,6 @@ public class User {
         return status;
     }
 
-    public String getResetToken() {
-        return resetToken;
-    }
-
-    public LocalDateTime getResetTokenExpiry() {
-        return resetTokenExpiry;
-    }
-
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -112,6 +104,10 @@ public class User {
         return updatedAt;
     }
 
+    public List<String> getSearchKeys() {
+        return searchKeys;
+    }
+
     // Setters
     public void setId(String id) {
         this.id = id;
@@ -149,14 +145,6 @@ public class User {
         this.status = status;
     }
 
-    public void setResetToken(String resetToken) {
-        this.resetToken = resetToken;
-    }
-
-    public void setResetTokenExpiry(LocalDateTime resetTokenExpiry) {
-        this.resetTokenExpiry = resetTokenExpiry;
-    }
-
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
@@ -165,6 +153,10 @@ public class User {
         this.updatedAt = updatedAt;
     }
 
+    public void setSearchKeys(List<String> searchKeys) {
+        this.searchKeys = searchKeys;
+    }
+
     // Enums
     public enum UserStatus {
         ACTIVATED, DEACTIVATED
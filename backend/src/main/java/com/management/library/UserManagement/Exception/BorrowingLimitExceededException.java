@@ -0,0 +1,7 @@
+package com.management.library.UserManagement.Exception;
+
+public class BorrowingLimitExceededException extends RuntimeException {
+    public BorrowingLimitExceededException(String message) {
+        super(message);
+    }
+}
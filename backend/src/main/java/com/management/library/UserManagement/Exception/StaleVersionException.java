@@ -0,0 +1,7 @@
+package com.management.library.UserManagement.Exception;
+
+public class StaleVersionException extends RuntimeException {
+    public StaleVersionException(String message) {
+        super(message);
+    }
+}
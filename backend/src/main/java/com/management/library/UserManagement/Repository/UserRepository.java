@@ -2,7 +2,6 @@ package com.management.library.UserManagement.Repository;
 
 import com.management.library.UserManagement.Entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,10 +20,5 @@ public interface UserRepository extends MongoRepository<User, String> {
 
     List<User> findByStatus(User.UserStatus status);
 
-    @Query("{ $or: [ { 'firstName': { $regex: ?0, $options: 'i' } }, { 'lastName': { $regex: ?0, $options: 'i' } }, { 'username': { $regex: ?0, $options: 'i' } }, { 'email': { $regex: ?0, $options: 'i' } } ] }")
-    List<User> findBySearchQuery(String searchQuery);
-
     long countByStatus(User.UserStatus status);
-
-    Optional<User> findByResetToken(String resetToken);
 }
\ No newline at end of file
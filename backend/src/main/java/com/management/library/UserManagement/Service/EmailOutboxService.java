@@ -0,0 +1,339 @@
+package com.management.library.UserManagement.Service;
+
+import com.management.library.UserManagement.Entity.EmailOutboxMessage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transactional email outbox. Callers insert a message into {@code email_outbox} and return
+ * immediately; a bounded pool of workers claims due messages with a lease, delivers them through
+ * {@link EmailService} and retries failures with exponential back-off until {@code max-attempts},
+ * after which the message is parked as DEAD for an admin to inspect or re-queue. Inserts made inside
+ * a transaction commit or roll back with the caller's write and wake the workers only after commit.
+ * Password reset emails are rendered at send time, and their code is removed from the message as
+ * soon as it is sent or given up on.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    public record WelcomeEmail(String messageKey, String toEmail, String memberName, String memberId, String membershipType) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final EmailService emailService;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long leaseMillis;
+    private final int retentionDays;
+
+    private final ExecutorService workers;
+    private final Semaphore slots;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "email-outbox-dispatch");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    public EmailOutboxService(MongoTemplate mongoTemplate, EmailService emailService,
+                              @Value("${app.mail.outbox.workers:4}") int workerCount,
+                              @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                              @Value("${app.mail.outbox.base-delay-ms:5000}") long baseDelayMillis,
+                              @Value("${app.mail.outbox.max-delay-ms:3600000}") long maxDelayMillis,
+                              @Value("${app.mail.outbox.lease-ms:120000}") long leaseMillis,
+                              @Value("${app.mail.outbox.retention-days:30}") int retentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.emailService = emailService;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.leaseMillis = leaseMillis;
+        this.retentionDays = retentionDays;
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "email-outbox-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.slots = new Semaphore(workerCount);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(EmailOutboxMessage.class).createIndex(new Index()
+                    .on("messageKey", Sort.Direction.ASC).unique());
+            mongoTemplate.indexOps(EmailOutboxMessage.class).createIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("nextAttemptAt", Sort.Direction.ASC));
+            // Only SENT messages carry sentAt, so pending and dead letters are never expired
+            mongoTemplate.indexOps(EmailOutboxMessage.class).createIndex(new Index()
+                    .on("sentAt", Sort.Direction.ASC).expire(Duration.ofDays(retentionDays)));
+        } catch (Exception e) {
+            log.warn("Could not create email outbox indexes: {}", e.getMessage());
+        }
+        wake();
+    }
+
+    /** Queues the membership welcome email; returns false if a message with this key was already queued. */
+    public boolean enqueueWelcome(String messageKey, String toEmail, String memberName, String memberId, String membershipType) {
+        return enqueue(welcomeMessage(new WelcomeEmail(messageKey, toEmail, memberName, memberId, membershipType)));
+    }
+
+    /**
+     * Queues many welcome emails with one unordered bulk insert and a single wake-up. Keys that are
+     * already queued are skipped; returns the number of messages actually queued.
+     */
+    public int enqueueWelcomes(List<WelcomeEmail> emails) {
+        if (emails.isEmpty()) return 0;
+        List<EmailOutboxMessage> messages = emails.stream().map(EmailOutboxService::welcomeMessage).toList();
+        int queued;
+        try {
+            queued = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailOutboxMessage.class)
+                    .insert(messages).execute().getInsertedCount();
+        } catch (BulkOperationException e) {
+            queued = e.getResult().getInsertedCount();
+            log.debug("{} welcome emails were already queued", messages.size() - queued);
+        }
+        if (queued > 0) wakeAfterCommit();
+        return queued;
+    }
+
+    private static EmailOutboxMessage welcomeMessage(WelcomeEmail email) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("memberName", email.memberName());
+        params.put("memberId", email.memberId());
+        params.put("membershipType", email.membershipType());
+        return new EmailOutboxMessage(email.messageKey(), EmailOutboxMessage.Kind.WELCOME, email.toEmail(), null, null, params);
+    }
+
+    /** Queues a password reset code email that is dropped undelivered once the code has expired. */
+    public boolean enqueuePasswordReset(String messageKey, String toEmail, String firstName, String code,
+                                        LocalDateTime expiresAt) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("firstName", firstName);
+        params.put("code", code);
+        params.put("expiresAt", expiresAt.toString());
+        return enqueue(new EmailOutboxMessage(messageKey, EmailOutboxMessage.Kind.PASSWORD_RESET, toEmail,
+                "SARASAVI Library - Password Reset Token", null, params));
+    }
+
+    /** Queues a plain-text email; returns false if a message with this key was already queued. */
+    public boolean enqueueSimple(String messageKey, String toEmail, String subject, String body) {
+        return enqueue(new EmailOutboxMessage(messageKey, EmailOutboxMessage.Kind.SIMPLE, toEmail, subject, body, null));
+    }
+
+    private boolean enqueue(EmailOutboxMessage message) {
+        try {
+            mongoTemplate.insert(message);
+        } catch (DuplicateKeyException e) {
+            log.debug("Email {} already queued", message.getMessageKey());
+            return false;
+        }
+        wakeAfterCommit();
+        return true;
+    }
+
+    // A message inserted in a transaction is invisible to the workers until it commits
+    private void wakeAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wake();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wake();
+            }
+        });
+    }
+
+    // Safety net for messages whose back-off has elapsed or whose worker died mid-send
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        wake();
+    }
+
+    // At most one drain is queued; a wake during a drain queues exactly one more
+    private void wake() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            while (slots.tryAcquire()) {
+                EmailOutboxMessage message = claimNext();
+                if (message == null) {
+                    slots.release();
+                    return;
+                }
+                workers.execute(() -> {
+                    try {
+                        deliver(message);
+                    } finally {
+                        slots.release();
+                        wake();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            slots.release();
+            log.warn("Email outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    private EmailOutboxMessage claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        Query due = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(EmailOutboxMessage.Status.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(EmailOutboxMessage.Status.SENDING).and("lockedUntil").lt(now)))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update lease = new Update()
+                .set("status", EmailOutboxMessage.Status.SENDING)
+                .set("lockedUntil", now.plus(Duration.ofMillis(leaseMillis)));
+        return mongoTemplate.findAndModify(due, lease, FindAndModifyOptions.options().returnNew(true), EmailOutboxMessage.class);
+    }
+
+    private void deliver(EmailOutboxMessage message) {
+        Query claimed = new Query(Criteria.where("_id").is(message.getId())
+                .and("status").is(EmailOutboxMessage.Status.SENDING));
+        int attempts = message.getAttempts() + 1;
+        boolean reset = message.getKind() == EmailOutboxMessage.Kind.PASSWORD_RESET;
+        if (reset && !resetCodeUsable(message.getParams())) {
+            mongoTemplate.updateFirst(claimed, new Update()
+                    .set("status", EmailOutboxMessage.Status.DEAD)
+                    .set("lastError", "Reset code expired before delivery")
+                    .unset("params.code")
+                    .unset("lockedUntil"), EmailOutboxMessage.class);
+            return;
+        }
+        try {
+            Map<String, String> p = message.getParams();
+            if (message.getKind() == EmailOutboxMessage.Kind.WELCOME) {
+                emailService.sendMemberWelcomeEmail(message.getToEmail(), p.get("memberName"),
+                        p.get("memberId"), p.get("membershipType"));
+            } else if (reset) {
+                emailService.sendSimpleEmail(message.getToEmail(), message.getSubject(), resetBody(p));
+            } else {
+                emailService.sendSimpleEmail(message.getToEmail(), message.getSubject(), message.getBody());
+            }
+            Update sent = new Update()
+                    .set("status", EmailOutboxMessage.Status.SENT)
+                    .set("attempts", attempts)
+                    .set("sentAt", LocalDateTime.now())
+                    .unset("lockedUntil")
+                    .unset("lastError");
+            if (reset) sent.unset("params.code");
+            mongoTemplate.updateFirst(claimed, sent, EmailOutboxMessage.class);
+        } catch (Exception e) {
+            Update failed = new Update()
+                    .set("attempts", attempts)
+                    .set("lastError", e.getMessage())
+                    .unset("lockedUntil");
+            if (attempts >= maxAttempts) {
+                failed.set("status", EmailOutboxMessage.Status.DEAD);
+                if (reset) failed.unset("params.code");
+                log.error("Email {} to {} dead-lettered after {} attempts: {}",
+                        message.getMessageKey(), message.getToEmail(), attempts, e.getMessage());
+            } else {
+                failed.set("status", EmailOutboxMessage.Status.PENDING)
+                        .set("nextAttemptAt", LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(attempts))));
+                log.warn("Email {} failed (attempt {}), will retry: {}", message.getMessageKey(), attempts, e.getMessage());
+            }
+            mongoTemplate.updateFirst(claimed, failed, EmailOutboxMessage.class);
+        }
+    }
+
+    private static boolean resetCodeUsable(Map<String, String> params) {
+        if (params == null || params.get("code") == null || params.get("expiresAt") == null) return false;
+        return LocalDateTime.parse(params.get("expiresAt")).isAfter(LocalDateTime.now());
+    }
+
+    private static String resetBody(Map<String, String> p) {
+        long minutes = Math.max(1, Duration.between(LocalDateTime.now(), LocalDateTime.parse(p.get("expiresAt"))).toMinutes());
+        return "Hello " + p.get("firstName") + ",\n\n" +
+                "You have requested to reset your password.\n\n" +
+                "Use this token to reset your password: " + p.get("code") + "\n\n" +
+                "This token expires in " + minutes + " minutes.\n\n" +
+                "If you did not request this, please ignore this email.\n\n" +
+                "Best regards,\n" +
+                "SARASAVI Library Team";
+    }
+
+    // Exponential back-off with jitter in [delay/2, delay]
+    private long backoffMillis(int attempts) {
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempts - 1, 30));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (EmailOutboxMessage.Status status : EmailOutboxMessage.Status.values()) {
+            stats.put(status.name(), mongoTemplate.count(new Query(Criteria.where("status").is(status)), EmailOutboxMessage.class));
+        }
+        return stats;
+    }
+
+    /** Dead letters without their body or template arguments, which may hold personal data. */
+    public List<EmailOutboxMessage> getDeadLetters(int limit) {
+        Query dead = new Query(Criteria.where("status").is(EmailOutboxMessage.Status.DEAD))
+                .with(Sort.by(Sort.Direction.DESC, "nextAttemptAt")).limit(limit);
+        dead.fields().exclude("body", "params");
+        return mongoTemplate.find(dead, EmailOutboxMessage.class);
+    }
+
+    /** Puts a dead-lettered message back in the queue with a fresh attempt budget. */
+    public boolean requeue(String id) {
+        boolean requeued = mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(id).and("status").is(EmailOutboxMessage.Status.DEAD)),
+                new Update()
+                        .set("status", EmailOutboxMessage.Status.PENDING)
+                        .set("attempts", 0)
+                        .set("nextAttemptAt", LocalDateTime.now()),
+                EmailOutboxMessage.class).getModifiedCount() > 0;
+        if (requeued) wake();
+        return requeued;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        workers.shutdown();
+    }
+}
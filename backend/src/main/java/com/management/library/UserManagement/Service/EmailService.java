@@ -1,27 +1,29 @@
 package com.management.library.UserManagement.Service;
 
+import com.management.library.MemberManagement.Entity.Member;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class EmailService {
 
+    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+
     @Autowired
     private JavaMailSender mailSender;
 
@@ -31,14 +33,27 @@ public class EmailService {
     @Value("${app.mail.provider:smtp}")
     private String mailProvider;
 
-    @Value("${app.mail.from:}")
-    private String fromEmail;
+    @Autowired
+    private SendGridClient sendGridClient;
 
-    @Value("${app.mail.fromName:SARASAVI}")
-    private String fromName;
+    @Autowired
+    private SmtpBulkSender smtpBulkSender;
 
-    @Value("${sendgrid.apiKey:}")
-    private String sendgridApiKey;
+    public record SimpleEmail(String toEmail, String subject, String body) {
+    }
+
+    public record BulkResult(int sent, int failed) {
+    }
+
+    // Parsed once; the static CSS, pricing table and per-type highlighting are pre-rendered
+    private final EmailTemplate welcomeTemplate = EmailTemplate.fromClasspath("email/member-welcome.html");
+    private final Map<String, EmailTemplate> welcomeTemplates = new HashMap<>();
+
+    public EmailService() {
+        for (Member.MembershipType type : Member.MembershipType.values()) {
+            welcomeTemplates.put(type.name(), bindMembershipType(type.name()));
+        }
+    }
 
     public void sendMemberWelcomeEmail(String toEmail, String memberName, String memberId, String membershipType) {
         try {
@@ -58,14 +73,14 @@ public class EmailService {
                 helper.setText(htmlContent, true);
 
                 mailSender.send(message);
-                System.out.println("Member welcome email sent successfully to: " + toEmail);
+                log.info("Member welcome email sent successfully to: {}", toEmail);
             }
 
         } catch (MessagingException e) {
-            System.err.println("Failed to send member welcome email: " + e.getMessage());
+            log.error("Failed to send member welcome email: {}", e.getMessage());
             throw new RuntimeException("Failed to send welcome email", e);
         } catch (Exception e) {
-            System.err.println("Failed to send member welcome email: " + e.getMessage());
+            log.error("Failed to send member welcome email: {}", e.getMessage());
             throw new RuntimeException("Failed to send welcome email", e);
         }
     }
@@ -74,186 +89,114 @@ public class EmailService {
         try {
             if ("sendgrid".equalsIgnoreCase(mailProvider)) {
                 // For simple text emails, wrap in minimal HTML for consistency
-                String htmlBody = "<div style='font-family: Arial, sans-serif;'><p>" + body.replace("\n", "<br>") + "</p></div>";
-                sendViaSendGrid(toEmail, subject, htmlBody, body);
+                sendViaSendGrid(toEmail, subject, toHtml(body), body);
             } else {
                 // Use SMTP
-                MimeMessage message = mailSender.createMimeMessage();
-                message.setFrom(new InternetAddress(smtpFromEmail));
-                message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(toEmail));
-                message.setSubject(subject);
-                message.setText(body);
-
-                mailSender.send(message);
-                System.out.println("Simple email sent successfully to: " + toEmail);
+                mailSender.send(createSimpleMessage(toEmail, subject, body));
+                log.info("Simple email sent successfully to: {}", toEmail);
             }
 
         } catch (Exception e) {
-            System.err.println("Failed to send simple email: " + e.getMessage());
+            log.error("Failed to send simple email: {}", e.getMessage());
             throw new RuntimeException("Failed to send email", e);
         }
     }
 
-    private void sendViaSendGrid(String toEmail, String subject, String htmlContent, String textContent) {
-        try {
-            RestTemplate restTemplate = new RestTemplate();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + sendgridApiKey);
-
-            // SendGrid API format
-            Map<String, Object> personalization = new HashMap<>();
-            personalization.put("to", new Object[]{Map.of("email", toEmail)});
-            
-            Map<String, Object> fromMap = new HashMap<>();
-            fromMap.put("email", fromEmail);
-            fromMap.put("name", fromName);
+    /**
+     * Sends one plain-text email to many recipients. With SendGrid this is a single API call per
+     * {@value SendGridClient#MAX_PERSONALIZATIONS} recipients; with SMTP the messages share pooled sessions.
+     */
+    public BulkResult sendBulkSimpleEmail(List<String> toEmails, String subject, String body) {
+        if (toEmails.isEmpty()) return new BulkResult(0, 0);
+        if ("sendgrid".equalsIgnoreCase(mailProvider)) {
+            List<SendGridClient.Recipient> recipients = toEmails.stream().map(SendGridClient.Recipient::new).toList();
+            int failed = 0;
+            for (SendGridClient.BatchResult batch : sendGridClient.sendBulk(subject, toHtml(body), body, recipients)) {
+                if (!batch.delivered()) {
+                    failed += batch.recipients();
+                    log.warn("SendGrid bulk batch of {} recipients from #{} failed: {}",
+                            batch.recipients(), batch.from(), batch.error());
+                }
+            }
+            return new BulkResult(toEmails.size() - failed, failed);
+        }
+        return sendSimpleEmails(toEmails.stream().map(to -> new SimpleEmail(to, subject, body)).toList());
+    }
 
-            Map<String, Object> content = new HashMap<>();
-            content.put("type", "text/html");
-            content.put("value", htmlContent);
+    /**
+     * Sends many individual plain-text emails (notices, reminders). Over SMTP they are pipelined
+     * through a few reused sessions instead of one connection per message.
+     */
+    public BulkResult sendSimpleEmails(List<SimpleEmail> emails) {
+        if ("sendgrid".equalsIgnoreCase(mailProvider)) {
+            int failed = 0;
+            for (SimpleEmail email : emails) {
+                try {
+                    sendGridClient.send(email.toEmail(), email.subject(), toHtml(email.body()), email.body());
+                } catch (Exception e) {
+                    failed++;
+                    log.warn("Failed to send email via SendGrid to {}: {}", email.toEmail(), e.getMessage());
+                }
+            }
+            return new BulkResult(emails.size() - failed, failed);
+        }
 
-            Map<String, Object> body = new HashMap<>();
-            body.put("personalizations", new Object[]{personalization});
-            body.put("from", fromMap);
-            body.put("subject", subject);
-            body.put("content", new Object[]{content});
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        int invalid = 0;
+        for (SimpleEmail email : emails) {
+            try {
+                messages.add(createSimpleMessage(email.toEmail(), email.subject(), email.body()));
+            } catch (MessagingException e) {
+                invalid++;
+                log.warn("Skipping email to {}: {}", email.toEmail(), e.getMessage());
+            }
+        }
+        BulkResult result = smtpBulkSender.send(messages);
+        return new BulkResult(result.sent(), result.failed() + invalid);
+    }
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                "https://api.sendgrid.com/v3/mail/send",
-                request,
-                String.class
-            );
+    private MimeMessage createSimpleMessage(String toEmail, String subject, String body) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        message.setFrom(new InternetAddress(smtpFromEmail));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(toEmail));
+        message.setSubject(subject);
+        message.setText(body);
+        return message;
+    }
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                System.out.println("Email sent successfully via SendGrid to: " + toEmail);
-            } else {
-                System.err.println("SendGrid API returned non-2xx status: " + response.getStatusCode());
-                throw new RuntimeException("Failed to send email via SendGrid");
-            }
+    private String toHtml(String body) {
+        return "<div style='font-family: Arial, sans-serif;'><p>" + body.replace("\n", "<br>") + "</p></div>";
+    }
 
+    private void sendViaSendGrid(String toEmail, String subject, String htmlContent, String textContent) {
+        try {
+            sendGridClient.send(toEmail, subject, htmlContent, textContent);
+            log.info("Email sent successfully via SendGrid to: {}", toEmail);
         } catch (Exception e) {
-            System.err.println("Failed to send email via SendGrid: " + e.getMessage());
+            log.error("Failed to send email via SendGrid: {}", e.getMessage());
             throw new RuntimeException("Failed to send email via SendGrid", e);
         }
     }
 
     private String createMemberWelcomeEmailTemplate(String memberName, String memberId, String membershipType) {
-        String currentDate = java.time.LocalDate.now().toString();
-        
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html>");
-        html.append("<html>");
-        html.append("<head>");
-        html.append("<meta charset='UTF-8'>");
-        html.append("<style>");
-        html.append("body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; max-width: 600px; margin: 0 auto; padding: 20px; }");
-        html.append(".header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 30px; text-align: center; border-radius: 10px 10px 0 0; }");
-        html.append(".content { background: #f8f9fa; padding: 30px; border-radius: 0 0 10px 10px; }");
-        html.append(".member-id { background: #e3f2fd; border: 2px solid #2196f3; padding: 15px; text-align: center; border-radius: 8px; font-size: 18px; font-weight: bold; color: #1976d2; margin: 20px 0; }");
-        html.append(".membership-details { background: white; padding: 20px; border-radius: 8px; margin: 20px 0; box-shadow: 0 2px 4px rgba(0,0,0,0.1); }");
-        html.append(".pricing-table { width: 100%; border-collapse: collapse; margin: 15px 0; }");
-        html.append(".pricing-table th, .pricing-table td { padding: 12px; text-align: left; border-bottom: 1px solid #ddd; }");
-        html.append(".pricing-table th { background-color: #f5f5f5; font-weight: bold; }");
-        html.append(".your-plan { background-color: #e8f5e8; font-weight: bold; }");
-        html.append(".benefits { background: white; padding: 20px; border-radius: 8px; margin: 20px 0; }");
-        html.append(".benefits ul { padding-left: 20px; }");
-        html.append(".benefits li { margin: 8px 0; }");
-        html.append(".footer { text-align: center; padding: 20px; color: #666; font-size: 14px; }");
-        html.append("</style>");
-        html.append("</head>");
-        html.append("<body>");
-        
-        html.append("<div class='header'>");
-        html.append("<h1>🎉 Welcome to SARASAVI Library!</h1>");
-        html.append("<p>Your membership has been successfully activated</p>");
-        html.append("</div>");
-        
-        html.append("<div class='content'>");
-        html.append("<h2>Dear ").append(memberName).append(",</h2>");
-        html.append("<p>Congratulations! You are now an official member of the SARASAVI Library. We're excited to have you join our community of learners and knowledge seekers.</p>");
-        
-        html.append("<div class='member-id'>");
-        html.append("<strong>Your Member ID: ").append(memberId).append("</strong>");
-        html.append("<br><small>Keep this ID safe - you'll need it to access your member profile</small>");
-        html.append("</div>");
-        
-        html.append("<div class='membership-details'>");
-        html.append("<h3>Your Membership Details</h3>");
-        html.append("<p><strong>Membership Type:</strong> ").append(membershipType).append("</p>");
-        html.append("<p><strong>Status:</strong> Active</p>");
-        html.append("<p><strong>Registration Date:</strong> ").append(currentDate).append("</p>");
-        html.append("</div>");
-        
-        html.append("<div class='membership-details'>");
-        html.append("<h3>All Membership Types & Pricing</h3>");
-        html.append("<table class='pricing-table'>");
-        html.append("<tr><th>Membership Type</th><th>Monthly Fee</th><th>Features</th></tr>");
-        
-        html.append("<tr").append(membershipType.equals("BASIC") ? " class='your-plan'" : "").append(">");
-        html.append("<td>Basic</td><td>$10/month</td><td>Standard borrowing, Basic digital access</td></tr>");
-        
-        html.append("<tr").append(membershipType.equals("PREMIUM") ? " class='your-plan'" : "").append(">");
-        html.append("<td>Premium</td><td>$25/month</td><td>Extended borrowing, Full digital access, Priority support</td></tr>");
-        
-        html.append("<tr").append(membershipType.equals("STUDENT") ? " class='your-plan'" : "").append(">");
-        html.append("<td>Student</td><td>$5/month</td><td>Student discount, Academic resources</td></tr>");
-        
-        html.append("<tr").append(membershipType.equals("FAMILY") ? " class='your-plan'" : "").append(">");
-        html.append("<td>Family</td><td>$40/month</td><td>Up to 4 family members, Shared benefits</td></tr>");
-        
-        html.append("<tr").append(membershipType.equals("FACULTY") ? " class='your-plan'" : "").append(">");
-        html.append("<td>Faculty</td><td>$15/month</td><td>Research access, Teaching resources</td></tr>");
-        
-        html.append("<tr").append(membershipType.equals("REGULAR") ? " class='your-plan'" : "").append(">");
-        html.append("<td>Regular</td><td>$20/month</td><td>Standard access, Regular borrowing limits</td></tr>");
-        
-        html.append("</table>");
-        html.append("</div>");
-        
-        html.append("<div class='benefits'>");
-        html.append("<h3>Your Membership Benefits</h3>");
-        html.append("<ul>");
-        html.append("<li>📚 Extended borrowing periods (up to 14 days)</li>");
-        html.append("<li>💻 Access to premium digital resources and e-books</li>");
-        html.append("<li>🔍 Priority book reservations</li>");
-        html.append("<li>🏫 Study room booking privileges</li>");
-        html.append("<li>🎓 Research assistance services</li>");
-        html.append("<li>📱 Mobile app access for catalog browsing</li>");
-        html.append("<li>🔔 Email notifications for due dates and new arrivals</li>");
-        html.append("<li>📊 Personal reading history and recommendations</li>");
-        html.append("</ul>");
-        html.append("</div>");
-        
-        html.append("<div style='text-align: center;'>");
-        html.append("<p><strong>Ready to explore our library?</strong></p>");
-        html.append("<p>Use your Member ID to access your profile and start borrowing books today!</p>");
-        html.append("</div>");
-        
-        html.append("<div class='membership-details'>");
-        html.append("<h3>Library Information</h3>");
-        html.append("<p><strong>Location:</strong> SARASAVI Campus, New Kandy Road, Malabe, Sri Lanka</p>");
-        html.append("<p><strong>Phone:</strong> +94 11 754 4801</p>");
-        html.append("<p><strong>Email:</strong> library@sarasavi.lk</p>");
-        html.append("<p><strong>Hours:</strong></p>");
-        html.append("<ul>");
-        html.append("<li>Monday - Friday: 8:00 AM - 10:00 PM</li>");
-        html.append("<li>Saturday: 9:00 AM - 8:00 PM</li>");
-        html.append("<li>Sunday: 10:00 AM - 6:00 PM</li>");
-        html.append("</ul>");
-        html.append("</div>");
-        html.append("</div>");
-        
-        html.append("<div class='footer'>");
-        html.append("<p>Thank you for choosing SARASAVI Library!</p>");
-        html.append("<p>If you have any questions, please don't hesitate to contact us.</p>");
-        html.append("<p>&copy; 2025 SARASAVI Library. All rights reserved.</p>");
-        html.append("</div>");
-        
-        html.append("</body>");
-        html.append("</html>");
-        
-        return html.toString();
+        EmailTemplate template = membershipType == null ? null : welcomeTemplates.get(membershipType);
+        if (template == null) {
+            template = bindMembershipType(membershipType);
+        }
+        Map<String, String> values = new HashMap<>();
+        values.put("memberName", memberName);
+        values.put("memberId", memberId);
+        values.put("registrationDate", java.time.LocalDate.now().toString());
+        return template.render(values);
+    }
+
+    // Fixes the membership type and the highlighted pricing row, leaving only per-member values open
+    private EmailTemplate bindMembershipType(String membershipType) {
+        Map<String, String> values = new HashMap<>();
+        values.put("membershipType", String.valueOf(membershipType));
+        for (Member.MembershipType type : Member.MembershipType.values()) {
+            values.put("row." + type.name(), type.name().equals(membershipType) ? " class='your-plan'" : "");
+        }
+        return welcomeTemplate.bind(values);
     }
 }
\ No newline at end of file
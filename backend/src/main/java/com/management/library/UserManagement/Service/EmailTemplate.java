@@ -0,0 +1,98 @@
+package com.management.library.UserManagement.Service;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template parsed once into static text segments and {@code {{name}}} placeholders. Rendering
+ * only copies the segments and looks up the placeholder values, reusing a per-thread buffer.
+ * {@link #bind} fixes some placeholders up front and returns a smaller template, which is how
+ * per-membership-type variants are cached.
+ */
+public final class EmailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    // segments.length == names.length + 1; output is segments[0] + value(names[0]) + segments[1] ...
+    private final String[] segments;
+    private final String[] names;
+    private final int staticLength;
+
+    private EmailTemplate(String[] segments, String[] names) {
+        this.segments = segments;
+        this.names = names;
+        int length = 0;
+        for (String segment : segments) length += segment.length();
+        this.staticLength = length;
+    }
+
+    public static EmailTemplate compile(String source) {
+        List<String> segments = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = source.indexOf(OPEN, from)) >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) break;
+            segments.add(source.substring(from, open));
+            names.add(source.substring(open + OPEN.length(), close).trim());
+            from = close + CLOSE.length();
+        }
+        segments.add(source.substring(from));
+        return new EmailTemplate(segments.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    public static EmailTemplate fromClasspath(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load email template " + path, e);
+        }
+    }
+
+    /** Substitutes the given values and keeps every other placeholder for a later render. */
+    public EmailTemplate bind(Map<String, String> values) {
+        List<String> newSegments = new ArrayList<>();
+        List<String> newNames = new ArrayList<>();
+        StringBuilder current = new StringBuilder(segments[0]);
+        for (int i = 0; i < names.length; i++) {
+            String value = values.get(names[i]);
+            if (value != null) {
+                current.append(value);
+            } else {
+                newSegments.add(current.toString());
+                newNames.add(names[i]);
+                current.setLength(0);
+            }
+            current.append(segments[i + 1]);
+        }
+        newSegments.add(current.toString());
+        return new EmailTemplate(newSegments.toArray(new String[0]), newNames.toArray(new String[0]));
+    }
+
+    /** Renders the template; placeholders without a value render as empty text. */
+    public String render(Map<String, String> values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        out.ensureCapacity(staticLength + names.length * 32);
+        out.append(segments[0]);
+        for (int i = 0; i < names.length; i++) {
+            String value = values.get(names[i]);
+            if (value != null) out.append(value);
+            out.append(segments[i + 1]);
+        }
+        String result = out.toString();
+        // Don't let one oversized render pin a large buffer to the thread
+        if (out.capacity() > MAX_POOLED_CAPACITY) BUFFER.remove();
+        return result;
+    }
+}
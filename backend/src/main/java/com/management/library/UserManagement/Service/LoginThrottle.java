@@ -0,0 +1,128 @@
+package com.management.library.UserManagement.Service;
+
+import com.management.library.UserManagement.Exception.TooManyRequestsException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket throttles for login attempts, one bucket per username and one per client IP.
+ * Every attempt costs a token from its IP bucket, but an account's bucket is only charged for
+ * failed attempts, so a user who logs in successfully never uses up their own allowance. Behind a
+ * reverse proxy the client IP is read from the configured forwarded header.
+ * Buckets live in a ConcurrentHashMap (lock-striped per bin) and are only locked individually,
+ * so unrelated logins never contend; buckets that have refilled completely are dropped.
+ */
+@Component
+public class LoginThrottle {
+
+    private final ConcurrentHashMap<String, Bucket> usernames = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Bucket> addresses = new ConcurrentHashMap<>();
+    private final int usernameCapacity;
+    private final double usernameTokensPerNano;
+    private final int ipCapacity;
+    private final double ipTokensPerNano;
+    private final String clientIpHeader;
+
+    public LoginThrottle(@Value("${app.auth.throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${app.auth.throttle.username.per-minute:5}") int usernamePerMinute,
+                         @Value("${app.auth.throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${app.auth.throttle.ip.per-minute:60}") int ipPerMinute,
+                         @Value("${app.auth.throttle.client-ip-header:}") String clientIpHeader) {
+        this.usernameCapacity = usernameCapacity;
+        this.usernameTokensPerNano = usernamePerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.ipCapacity = ipCapacity;
+        this.ipTokensPerNano = ipPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.clientIpHeader = clientIpHeader == null ? "" : clientIpHeader.trim();
+    }
+
+    /**
+     * Takes one token from the client's IP bucket and checks, without charging it, that the account
+     * still has one; throws a 429 otherwise. Call before verifying credentials.
+     */
+    public void acquire(String username, String clientIp) {
+        if (clientIp != null) {
+            take(addresses, clientIp, ipCapacity, ipTokensPerNano, true, "Too many login attempts from this address");
+        }
+        if (username != null) {
+            take(usernames, key(username), usernameCapacity, usernameTokensPerNano, false,
+                    "Too many login attempts for this account");
+        }
+    }
+
+    /** Charges the account's bucket for an attempt whose credentials were wrong. */
+    public void recordFailure(String username) {
+        if (username == null) return;
+        usernames.computeIfAbsent(key(username), k -> new Bucket(usernameCapacity))
+                .tryTake(usernameCapacity, usernameTokensPerNano, true);
+    }
+
+    /**
+     * The address to throttle: the last entry of the configured forwarded header (the one added by
+     * our own proxy, which a client cannot forge), or the socket address when no header is set.
+     */
+    public String clientIp(HttpServletRequest request) {
+        if (!clientIpHeader.isEmpty()) {
+            String forwarded = request.getHeader(clientIpHeader);
+            if (forwarded != null && !forwarded.isBlank()) {
+                String[] hops = forwarded.split(",");
+                return hops[hops.length - 1].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static String key(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void take(ConcurrentHashMap<String, Bucket> buckets, String key, int capacity, double tokensPerNano,
+                      boolean charge, String message) {
+        long waitNanos = buckets.computeIfAbsent(key, k -> new Bucket(capacity)).tryTake(capacity, tokensPerNano, charge);
+        if (waitNanos > 0) {
+            throw new TooManyRequestsException(message + ", please try again later",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos)));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.throttle.cleanup-interval-ms:60000}")
+    public void evictIdle() {
+        usernames.values().removeIf(b -> b.isFull(usernameCapacity, usernameTokensPerNano));
+        addresses.values().removeIf(b -> b.isFull(ipCapacity, ipTokensPerNano));
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        Bucket(int capacity) {
+            this.tokens = capacity;
+        }
+
+        // Returns 0 if a token is available (and takes it when charging), otherwise the nanos until one is
+        synchronized long tryTake(int capacity, double tokensPerNano, boolean charge) {
+            refill(capacity, tokensPerNano);
+            if (tokens >= 1) {
+                if (charge) tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        synchronized boolean isFull(int capacity, double tokensPerNano) {
+            refill(capacity, tokensPerNano);
+            return tokens >= capacity;
+        }
+
+        private void refill(int capacity, double tokensPerNano) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.management.library.UserManagement.Service;
+
+import com.management.library.UserManagement.Entity.PasswordResetToken;
+import com.management.library.UserManagement.Entity.User;
+import com.management.library.UserManagement.Exception.InvalidTokenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Password-reset codes in {@code password_reset_tokens}, stored only as an HMAC-SHA256 of the user
+ * id and code under a server secret, so a leaked collection cannot be brute-forced offline. Every
+ * redemption names the account and is counted with an atomic $inc before the code is compared; the
+ * token is burned once {@code max-attempts} is reached.
+ */
+@Component
+public class PasswordResetTokenStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordResetTokenStore.class);
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final MongoTemplate mongoTemplate;
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final int maxAttempts;
+
+    public PasswordResetTokenStore(MongoTemplate mongoTemplate,
+                                   @Value("${app.auth.reset.secret:}") String secret,
+                                   @Value("${app.auth.reset.ttl-minutes:2}") long ttlMinutes,
+                                   @Value("${app.auth.reset.max-attempts:5}") int maxAttempts) {
+        this.mongoTemplate = mongoTemplate;
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+            log.warn("app.auth.reset.secret is not set; using a random key, pending reset codes will not survive a restart");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(PasswordResetToken.class).createIndex(new Index()
+                    .on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+            mongoTemplate.indexOps(PasswordResetToken.class).createIndex(new Index()
+                    .on("userId", Sort.Direction.ASC).unique());
+            // Codes used to live on the user document; clear what is left of them
+            mongoTemplate.updateMulti(new Query(Criteria.where("resetToken").exists(true)),
+                    new Update().unset("resetToken").unset("resetTokenExpiry"), User.class);
+        } catch (Exception e) {
+            log.warn("Could not prepare password reset tokens: {}", e.getMessage());
+        }
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /** Replaces any pending token of the user with a new 6-digit code and returns the code. */
+    public String issue(String userId) {
+        mongoTemplate.remove(new Query(Criteria.where("userId").is(userId)), PasswordResetToken.class);
+        String code = String.format("%06d", random.nextInt(1_000_000));
+        mongoTemplate.insert(new PasswordResetToken(hash(userId, code), userId, LocalDateTime.now().plus(ttl)));
+        return code;
+    }
+
+    /**
+     * Consumes the code issued to {@code userId}. The attempt is charged to that user's token before
+     * the code is compared, so every guess counts, right or wrong, and guessing is capped per account.
+     *
+     * @throws InvalidTokenException if the code is wrong, expired or out of attempts
+     */
+    public void redeem(String code, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        PasswordResetToken charged = mongoTemplate.findAndModify(
+                new Query(Criteria.where("userId").is(userId).and("expiresAt").gt(now).and("attempts").lt(maxAttempts)),
+                new Update().inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                PasswordResetToken.class);
+        if (charged == null) {
+            throw new InvalidTokenException("Reset token has expired or too many attempts were made");
+        }
+        byte[] expected = hash(userId, code).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, charged.getId().getBytes(StandardCharsets.US_ASCII))) {
+            if (charged.getAttempts() >= maxAttempts) {
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(charged.getId())), PasswordResetToken.class);
+            }
+            throw new InvalidTokenException("Invalid reset token");
+        }
+
+        // Single use: whoever deletes the token redeems it
+        PasswordResetToken token = mongoTemplate.findAndRemove(
+                new Query(Criteria.where("_id").is(charged.getId()).and("expiresAt").gt(now)), PasswordResetToken.class);
+        if (token == null) {
+            throw new InvalidTokenException("Invalid or expired reset token");
+        }
+    }
+
+    private String hash(String userId, String code) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] digest = mac.doFinal((userId + "\n" + code.trim()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
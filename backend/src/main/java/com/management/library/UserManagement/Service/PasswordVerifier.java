@@ -0,0 +1,75 @@
+package com.management.library.UserManagement.Service;
+
+import com.management.library.UserManagement.Exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt password checks on a small dedicated pool so login bursts cannot occupy every
+ * request thread and core. When the queue is full, or a check waits longer than the timeout,
+ * the caller gets a fast 429 instead of queueing behind the burst.
+ */
+@Component
+public class PasswordVerifier {
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMillis;
+
+    public PasswordVerifier(BCryptPasswordEncoder passwordEncoder,
+                            @Value("${app.auth.bcrypt.threads:0}") int threads,
+                            @Value("${app.auth.bcrypt.queue-capacity:32}") int queueCapacity,
+                            @Value("${app.auth.bcrypt.timeout-ms:3000}") long timeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+        // Default: half the cores, leaving the rest for the API
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "bcrypt-verify-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        Future<Boolean> check;
+        try {
+            check = pool.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many login attempts in progress, please try again shortly", 1);
+        }
+        try {
+            return check.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            throw new TooManyRequestsException("Too many login attempts in progress, please try again shortly", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+    }
+
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,154 @@
+package com.management.library.UserManagement.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared SendGrid v3 transport. One JDK HttpClient keeps connections (and their TLS sessions)
+ * alive across sends, a semaphore caps concurrent API calls, and bulk sends are packed into
+ * mail/send requests of up to {@value #MAX_PERSONALIZATIONS} personalizations each, sent in
+ * parallel. A bulk send reports the outcome of every request instead of stopping at the first
+ * failure, so callers know exactly which recipients were not handed over. The base URL is configurable so the client can be pointed at a local stub server.
+ */
+@Component
+public class SendGridClient {
+
+    public static final int MAX_PERSONALIZATIONS = 1000;
+
+    /** One recipient of a bulk send; substitutions replace tags such as {@code -name-} in the content. */
+    public record Recipient(String email, Map<String, String> substitutions) {
+        public Recipient(String email) {
+            this(email, Map.of());
+        }
+    }
+
+    /** Outcome of one mail/send request of a bulk send: {@code recipients} recipients starting at {@code from}. */
+    public record BatchResult(int from, int recipients, boolean delivered, String error) {
+    }
+
+    private final RestTemplate restTemplate;
+    private final ExecutorService httpExecutor;
+    private final ExecutorService bulkExecutor;
+    private final Semaphore permits;
+    private final String sendUrl;
+    private final String apiKey;
+    private final String fromEmail;
+    private final String fromName;
+
+    public SendGridClient(@Value("${app.mail.sendgrid.base-url:https://api.sendgrid.com}") String baseUrl,
+                          @Value("${sendgrid.apiKey:}") String apiKey,
+                          @Value("${app.mail.from:}") String fromEmail,
+                          @Value("${app.mail.fromName:SARASAVI}") String fromName,
+                          @Value("${app.mail.sendgrid.connect-timeout-ms:5000}") long connectTimeoutMillis,
+                          @Value("${app.mail.sendgrid.read-timeout-ms:15000}") long readTimeoutMillis,
+                          @Value("${app.mail.sendgrid.max-concurrent:8}") int maxConcurrent) {
+        this.sendUrl = baseUrl.replaceAll("/+$", "") + "/v3/mail/send";
+        this.apiKey = apiKey;
+        this.fromEmail = fromEmail;
+        this.fromName = fromName;
+        this.permits = new Semaphore(maxConcurrent);
+        this.httpExecutor = Executors.newFixedThreadPool(maxConcurrent, r -> {
+            Thread t = new Thread(r, "sendgrid-http");
+            t.setDaemon(true);
+            return t;
+        });
+        this.bulkExecutor = Executors.newFixedThreadPool(maxConcurrent, r -> {
+            Thread t = new Thread(r, "sendgrid-bulk");
+            t.setDaemon(true);
+            return t;
+        });
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(httpExecutor)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    public void send(String toEmail, String subject, String htmlContent, String textContent) {
+        sendBatch(subject, htmlContent, textContent, List.of(new Recipient(toEmail)));
+    }
+
+    /**
+     * Sends the same content to every recipient, one personalization each, in as few API calls as
+     * possible. Every request is attempted; the results are in recipient order.
+     */
+    public List<BatchResult> sendBulk(String subject, String htmlContent, String textContent, List<Recipient> recipients) {
+        List<CompletableFuture<BatchResult>> batches = new ArrayList<>();
+        for (int from = 0; from < recipients.size(); from += MAX_PERSONALIZATIONS) {
+            int start = from;
+            List<Recipient> batch = recipients.subList(from, Math.min(from + MAX_PERSONALIZATIONS, recipients.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    sendBatch(subject, htmlContent, textContent, batch);
+                    return new BatchResult(start, batch.size(), true, null);
+                } catch (RuntimeException e) {
+                    return new BatchResult(start, batch.size(), false, e.getMessage());
+                }
+            }, bulkExecutor));
+        }
+        return batches.stream().map(CompletableFuture::join).toList();
+    }
+
+    private void sendBatch(String subject, String htmlContent, String textContent, List<Recipient> recipients) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+
+        List<Map<String, Object>> personalizations = new ArrayList<>(recipients.size());
+        for (Recipient recipient : recipients) {
+            Map<String, Object> personalization = new HashMap<>();
+            personalization.put("to", List.of(Map.of("email", recipient.email())));
+            if (!recipient.substitutions().isEmpty()) {
+                personalization.put("substitutions", recipient.substitutions());
+            }
+            personalizations.add(personalization);
+        }
+
+        // SendGrid requires text/plain before text/html when both are present
+        List<Map<String, Object>> content = new ArrayList<>();
+        if (textContent != null) content.add(Map.of("type", "text/plain", "value", textContent));
+        content.add(Map.of("type", "text/html", "value", htmlContent));
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("personalizations", personalizations);
+        body.put("from", Map.of("email", fromEmail, "name", fromName));
+        body.put("subject", subject);
+        body.put("content", content);
+
+        permits.acquireUninterruptibly();
+        try {
+            ResponseEntity<String> response = restTemplate.postForEntity(sendUrl, new HttpEntity<>(body, headers), String.class);
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                throw new RuntimeException("SendGrid API returned non-2xx status: " + response.getStatusCode());
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkExecutor.shutdown();
+        httpExecutor.shutdown();
+    }
+}
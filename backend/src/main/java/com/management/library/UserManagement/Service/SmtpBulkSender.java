@@ -0,0 +1,106 @@
+package com.management.library.UserManagement.Service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sends many MimeMessages over a few SMTP sessions. Messages are split into batches and each batch
+ * goes through a single {@code send(MimeMessage...)} call, i.e. one connect, STARTTLS and AUTH for
+ * the whole batch; up to {@code sessions} batches are in flight at once. Messages the server
+ * rejected or that were cut off by a dropped connection are retried on a fresh session.
+ */
+@Component
+public class SmtpBulkSender {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpBulkSender.class);
+
+    private final JavaMailSender mailSender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final ExecutorService sessions;
+
+    public SmtpBulkSender(JavaMailSender mailSender,
+                          @Value("${app.mail.smtp.bulk.sessions:4}") int sessionCount,
+                          @Value("${app.mail.smtp.bulk.batch-size:50}") int batchSize,
+                          @Value("${app.mail.smtp.bulk.max-attempts:3}") int maxAttempts,
+                          @Value("${app.mail.smtp.bulk.retry-delay-ms:2000}") long retryDelayMillis) {
+        this.mailSender = mailSender;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMillis = retryDelayMillis;
+        this.sessions = Executors.newFixedThreadPool(sessionCount, r -> {
+            Thread t = new Thread(r, "smtp-bulk");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Sends all messages and blocks until every batch has finished or run out of attempts. */
+    public EmailService.BulkResult send(List<MimeMessage> messages) {
+        List<Future<Integer>> batches = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            List<MimeMessage> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            batches.add(sessions.submit(() -> sendBatch(batch)));
+        }
+        int failed = 0;
+        for (Future<Integer> batch : batches) {
+            try {
+                failed += batch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while sending bulk email", e);
+            } catch (Exception e) {
+                throw new RuntimeException("Bulk email batch failed", e);
+            }
+        }
+        return new EmailService.BulkResult(messages.size() - failed, failed);
+    }
+
+    // Returns the number of messages that could not be delivered
+    private int sendBatch(List<MimeMessage> batch) throws InterruptedException {
+        List<MimeMessage> pending = batch;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                mailSender.send(pending.toArray(new MimeMessage[0]));
+                return 0;
+            } catch (MailAuthenticationException e) {
+                log.error("SMTP authentication failed, dropping batch of {}: {}", pending.size(), e.getMessage());
+                return pending.size();
+            } catch (MailSendException e) {
+                // Only the messages that failed are sent again; the rest of the batch went through
+                List<MimeMessage> failed = new ArrayList<>();
+                for (Object message : e.getFailedMessages().keySet()) {
+                    if (message instanceof MimeMessage mime) failed.add(mime);
+                }
+                if (failed.isEmpty()) failed = pending;
+                if (attempt >= maxAttempts) {
+                    log.warn("Giving up on {} bulk emails after {} attempts: {}", failed.size(), attempt, e.getMessage());
+                    return failed.size();
+                }
+                log.warn("{} of {} bulk emails failed (attempt {}), reconnecting: {}",
+                        failed.size(), pending.size(), attempt, e.getMessage());
+                pending = failed;
+                Thread.sleep(retryDelayMillis * attempt);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.shutdown();
+    }
+}
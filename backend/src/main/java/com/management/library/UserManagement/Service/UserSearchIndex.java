@@ -0,0 +1,95 @@
+package com.management.library.UserManagement.Service;
+
+import com.management.library.Config.SearchKeys;
+import com.management.library.UserManagement.Entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Prefix search over users, kept the same way as {@code MemberSearchIndex}: every save stores
+ * {@link SearchKeys} for the name, username and email in the indexed {@code searchKeys} array.
+ */
+@Component
+public class UserSearchIndex implements BeforeConvertCallback<User> {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+    private static final int BACKFILL_BATCH = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxResults;
+
+    public UserSearchIndex(MongoTemplate mongoTemplate,
+                             @Value("${app.search.max-results:100}") int maxResults) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxResults = maxResults;
+    }
+
+    @Override
+    public User onBeforeConvert(User user, String collection) {
+        user.setSearchKeys(keysFor(user));
+        return user;
+    }
+
+    public List<User> search(String query) {
+        List<String> terms = SearchKeys.queryTerms(query);
+        if (terms.isEmpty()) return List.of();
+        return mongoTemplate.find(new Query(Criteria.where("searchKeys").all(terms)).limit(maxResults), User.class);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            mongoTemplate.indexOps(User.class).createIndex(new Index().on("searchKeys", Sort.Direction.ASC));
+            backfill();
+        } catch (Exception e) {
+            log.warn("Could not prepare user search index: {}", e.getMessage());
+        }
+    }
+
+    // Users saved before the index existed get their keys written in bulk
+    private void backfill() {
+        Query missing = new Query(Criteria.where("searchKeys").exists(false));
+        missing.fields().include("username", "firstName", "lastName", "email");
+        long updated = 0;
+        try (Stream<User> users = mongoTemplate.stream(missing, User.class)) {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            int pending = 0;
+            for (User user : (Iterable<User>) users::iterator) {
+                ops.updateOne(new Query(Criteria.where("_id").is(user.getId())),
+                        new Update().set("searchKeys", keysFor(user)));
+                if (++pending == BACKFILL_BATCH) {
+                    updated += ops.execute().getModifiedCount();
+                    ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) updated += ops.execute().getModifiedCount();
+        }
+        if (updated > 0) log.info("Indexed {} users for search", updated);
+    }
+
+    private static List<String> keysFor(User user) {
+        return new SearchKeys()
+                .words(user.getFirstName())
+                .words(user.getLastName())
+                .words(user.getUsername())
+                .identifier(user.getUsername())
+                .email(user.getEmail())
+                .build();
+    }
+}
@@ -1,5 +1,8 @@
 package com.management.library.UserManagement.Service;
 
+import com.management.library.Config.BatchLoader;
+import com.management.library.Config.SessionTokenService;
+import com.management.library.MemberManagement.Service.AccountStatsService;
 import com.management.library.UserManagement.Dto.*;
 import com.management.library.UserManagement.Entity.User;
 import com.management.library.UserManagement.Exception.*;
@@ -8,11 +11,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.security.SecureRandom;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,13 +27,31 @@ public class UserService {
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutbox;
+    private final PasswordVerifier passwordVerifier;
+    private final LoginThrottle loginThrottle;
+    private final SessionTokenService sessionTokenService;
+    private final PasswordResetTokenStore resetTokenStore;
+    private final AccountStatsService accountStats;
+    private final UserSearchIndex searchIndex;
+    private final BatchLoader<UserResponse> userBatchLoader;
 
     // Manual constructor
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, EmailService emailService) {
+    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, EmailOutboxService emailOutbox,
+                       PasswordVerifier passwordVerifier, LoginThrottle loginThrottle,
+                       SessionTokenService sessionTokenService, PasswordResetTokenStore resetTokenStore,
+                       AccountStatsService accountStats, UserSearchIndex searchIndex,
+                       BatchLoader<UserResponse> userBatchLoader) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.passwordVerifier = passwordVerifier;
+        this.loginThrottle = loginThrottle;
+        this.sessionTokenService = sessionTokenService;
+        this.resetTokenStore = resetTokenStore;
+        this.accountStats = accountStats;
+        this.searchIndex = searchIndex;
+        this.userBatchLoader = userBatchLoader;
     }
 
     public UserResponse createUser(CreateUserRequest request) {
@@ -56,6 +80,7 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User savedUser = userRepository.save(user);
+        accountStats.userAdded(savedUser.getStatus());
         log.info("User created successfully with ID: {}", savedUser.getId());
 
         // Note: Member profile will be created only when user explicitly becomes a member
@@ -64,14 +89,18 @@ public class UserService {
         return UserResponse.fromEntity(savedUser);
     }
 
-    public UserResponse loginUser(LoginRequest request) {
+    public UserResponse loginUser(LoginRequest request, String clientIp) {
         log.info("Login attempt for username: {}", request.getUsername());
 
+        // Throttle before any lookup or hashing so bursts are turned away cheaply
+        loginThrottle.acquire(request.getUsername(), clientIp);
+
         // Find user by username
         Optional<User> optionalUser = userRepository.findByUsername(request.getUsername());
 
         if (optionalUser.isEmpty()) {
             log.warn("Login failed - Username not found: {}", request.getUsername());
+            loginThrottle.recordFailure(request.getUsername());
             throw new InvalidCredentialsException("Invalid username or password");
         }
 
@@ -83,14 +112,17 @@ public class UserService {
             throw new AccountDeactivatedException("Account is deactivated");
         }
 
-        // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        // Verify password (on the bounded BCrypt pool, not the request thread)
+        if (!passwordVerifier.matches(request.getPassword(), user.getPassword())) {
             log.warn("Login failed - Invalid password for username: {}", request.getUsername());
+            loginThrottle.recordFailure(request.getUsername());
             throw new InvalidCredentialsException("Invalid username or password");
         }
 
         log.info("User logged in successfully with username: {}", request.getUsername());
-        return UserResponse.fromEntity(user);
+        UserResponse response = UserResponse.fromEntity(user);
+        response.setSessionToken(sessionTokenService.issue(user));
+        return response;
     }
 
     public UserResponse getUserById(String id) {
@@ -102,6 +134,14 @@ public class UserService {
         return UserResponse.fromEntity(user);
     }
 
+    public Map<String, UserResponse> getUsersByIds(Collection<String> ids) {
+        log.info("Fetching {} users by ID", ids.size());
+
+        return userRepository.findAllById(ids).stream()
+                .map(UserResponse::fromEntity)
+                .collect(Collectors.toMap(UserResponse::getId, u -> u));
+    }
+
     public UserResponse getUserByUsername(String username) {
         log.info("Fetching user with username: {}", username);
 
@@ -141,7 +181,7 @@ public class UserService {
     public List<UserResponse> searchUsers(String query) {
         log.info("Searching users with query: {}", query);
 
-        List<User> users = userRepository.findBySearchQuery(query);
+        List<User> users = searchIndex.search(query);
         return users.stream()
                 .map(UserResponse::fromEntity)
                 .collect(Collectors.toList());
@@ -182,6 +222,7 @@ public class UserService {
         if (request.getAddress() != null) {
             user.setAddress(request.getAddress());
         }
+        User.UserStatus previousStatus = user.getStatus();
         if (request.getStatus() != null) {
             user.setStatus(request.getStatus());
         }
@@ -189,6 +230,11 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User updatedUser = userRepository.save(user);
+        userBatchLoader.invalidate(id);
+        accountStats.userStatusChanged(previousStatus, updatedUser.getStatus());
+        if (updatedUser.getStatus() == User.UserStatus.DEACTIVATED) {
+            sessionTokenService.revoke(updatedUser.getId());
+        }
         log.info("User updated successfully with ID: {}", updatedUser.getId());
 
         return UserResponse.fromEntity(updatedUser);
@@ -201,7 +247,7 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + id));
 
         // Verify current password
-        if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
+        if (!passwordVerifier.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new InvalidPasswordException("Current password is incorrect");
         }
 
@@ -210,6 +256,7 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepository.save(user);
+        userBatchLoader.invalidate(id);
         log.info("Password changed successfully for user with ID: {}", id);
     }
 
@@ -219,10 +266,13 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + id));
 
+        User.UserStatus previousStatus = user.getStatus();
         user.setStatus(User.UserStatus.ACTIVATED);
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepository.save(user);
+        userBatchLoader.invalidate(id);
+        accountStats.userStatusChanged(previousStatus, User.UserStatus.ACTIVATED);
         log.info("User activated successfully with ID: {}", id);
     }
 
@@ -232,10 +282,14 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + id));
 
+        User.UserStatus previousStatus = user.getStatus();
         user.setStatus(User.UserStatus.DEACTIVATED);
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepository.save(user);
+        userBatchLoader.invalidate(id);
+        accountStats.userStatusChanged(previousStatus, User.UserStatus.DEACTIVATED);
+        sessionTokenService.revoke(id);
         log.info("User deactivated successfully with ID: {}", id);
     }
 
@@ -246,6 +300,9 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + id));
 
         userRepository.delete(user);
+        userBatchLoader.invalidate(id);
+        accountStats.userRemoved(user.getStatus());
+        sessionTokenService.revoke(id);
         log.info("User deleted successfully with ID: {}", id);
     }
 
@@ -253,53 +310,37 @@ public class UserService {
         return userRepository.countByStatus(status);
     }
 
+    public Map<String, Object> getUserStats() {
+        return accountStats.getUserStats();
+    }
+
+    @Transactional
     public void requestPasswordReset(ForgotPasswordRequest request) {
         log.info("Requesting password reset for email: {}", request.getEmail());
 
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + request.getEmail()));
 
-        // Generate a 6-digit numeric token
-        SecureRandom secureRandom = new SecureRandom();
-        String token = String.format("%06d", secureRandom.nextInt(1_000_000));
-        user.setResetToken(token);
-        user.setResetTokenExpiry(LocalDateTime.now().plusMinutes(2));
-        user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
-
-        // Send token via email
-        try {
-            String subject = "SARASAVI Library - Password Reset Token";
-            String body = "Hello " + user.getFirstName() + ",\n\n" +
-                    "You have requested to reset your password.\n\n" +
-                    "Use this token to reset your password: " + token + "\n\n" +
-                    "This token expires in 2 minutes.\n\n" +
-                    "If you did not request this, please ignore this email.\n\n" +
-                    "Best regards,\n" +
-                    "SARASAVI Library Team";
-            
-            emailService.sendSimpleEmail(user.getEmail(), subject, body);
-            log.info("Password reset token email sent to: {}", user.getEmail());
-        } catch (Exception ex) {
-            log.error("Failed to send reset email: {}", ex.getMessage());
-            // Still expose generic response to caller; admins can inspect logs.
-        }
+        // Generate a 6-digit numeric token; only its HMAC is stored. The email is rendered at send
+        // time, and the token and its outbox message commit together or not at all.
+        String token = resetTokenStore.issue(user.getId());
+        emailOutbox.enqueuePasswordReset("PASSWORD_RESET:" + user.getId() + ":" + UUID.randomUUID(), user.getEmail(),
+                user.getFirstName(), token, LocalDateTime.now().plus(resetTokenStore.getTtl()));
+        log.info("Password reset token email queued for: {}", user.getEmail());
     }
 
     public void resetPassword(ResetPasswordRequest request) {
         log.info("Resetting password using token");
 
-        User user = userRepository.findByResetToken(request.getToken())
-                .orElseThrow(() -> new ResourceNotFoundException("Invalid or expired reset token"));
-
-        if (user.getResetTokenExpiry() == null || user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
-            throw new InvalidTokenException("Reset token has expired");
-        }
+        // Every attempt is counted against the named account's token
+        User user = userRepository.findByEmail(request.getEmail().trim())
+                .orElseThrow(() -> new InvalidTokenException("Invalid or expired reset token"));
+        resetTokenStore.redeem(request.getToken(), user.getId());
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        user.setResetToken(null);
-        user.setResetTokenExpiry(null);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userBatchLoader.invalidate(user.getId());
+        sessionTokenService.revoke(user.getId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,230 @@
+package com.management.library.MemberManagement.Service;
+
+import com.management.library.MemberManagement.Entity.Member;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MemberIdAllocatorTest {
+
+	private static final int THREADS = 16;
+	private static final int REGISTRATIONS_PER_THREAD = 250;
+
+	@Test
+	void parallelRegistrationsOnTwoInstancesNeverShareAnId() throws Exception {
+		// The counters document: $inc is atomic, as it is in MongoDB
+		AtomicLong seq = new AtomicLong();
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.exists(any(Query.class), eq(MemberIdAllocator.COLLECTION))).thenReturn(true);
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+				eq(Document.class), eq(MemberIdAllocator.COLLECTION))).thenAnswer(invocation -> {
+			Update update = invocation.getArgument(1);
+			long size = ((Number) update.getUpdateObject().get("$inc", Document.class).get("seq")).longValue();
+			return new Document("seq", seq.addAndGet(size));
+		});
+
+		List<MemberIdAllocator> instances = List.of(
+				new MemberIdAllocator(mongoTemplate, new InMemoryTransactionManager(), "LIB", "2025", 7),
+				new MemberIdAllocator(mongoTemplate, new InMemoryTransactionManager(), "LIB", "2025", 7));
+
+		Set<String> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> workers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			MemberIdAllocator allocator = instances.get(t % instances.size());
+			workers.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < REGISTRATIONS_PER_THREAD; i++) {
+					assertTrue(ids.add(allocator.nextId()), "duplicate member ID");
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> worker : workers) {
+			worker.get(30, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		assertEquals(THREADS * REGISTRATIONS_PER_THREAD, ids.size());
+		assertTrue(ids.stream().allMatch(id -> id.matches("LIB2025\\d{3,}")));
+	}
+
+	@Test
+	void blockAllocationReturnsConsecutiveIds() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.exists(any(Query.class), eq(MemberIdAllocator.COLLECTION))).thenReturn(true);
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+				eq(Document.class), eq(MemberIdAllocator.COLLECTION))).thenReturn(new Document("seq", 50L));
+
+		List<String> ids = new MemberIdAllocator(mongoTemplate, new InMemoryTransactionManager(), "MEM", "2026", 50).allocate(3);
+
+		assertEquals(List.of("MEM2026001", "MEM2026002", "MEM2026003"), ids);
+	}
+
+	@Test
+	void firstReservationSeedsTheCounterAboveExistingIds() {
+		// No counter yet; members from the old scheme already hold numbers up to 12
+		AtomicLong seq = new AtomicLong();
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.exists(any(Query.class), eq(MemberIdAllocator.COLLECTION))).thenReturn(false);
+		when(mongoTemplate.stream(any(Query.class), eq(Member.class)))
+				.thenReturn(Stream.of(member("LIB2025007"), member("LIB2025012"), member("LIB2025003")));
+		when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class), eq(MemberIdAllocator.COLLECTION)))
+				.thenAnswer(invocation -> {
+					Update update = invocation.getArgument(1);
+					long floor = ((Number) update.getUpdateObject().get("$max", Document.class).get("seq")).longValue();
+					seq.accumulateAndGet(floor, Math::max);
+					return null;
+				});
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+				eq(Document.class), eq(MemberIdAllocator.COLLECTION))).thenAnswer(invocation -> {
+			Update update = invocation.getArgument(1);
+			long size = ((Number) update.getUpdateObject().get("$inc", Document.class).get("seq")).longValue();
+			return new Document("seq", seq.addAndGet(size));
+		});
+
+		List<String> ids = new MemberIdAllocator(mongoTemplate, new InMemoryTransactionManager(), "LIB", "2025", 5).allocate(2);
+
+		assertEquals(List.of("LIB2025013", "LIB2025014"), ids);
+		verify(mongoTemplate, times(1)).upsert(any(Query.class), any(UpdateDefinition.class), eq(MemberIdAllocator.COLLECTION));
+	}
+
+	@Test
+	void rolledBackRegistrationDoesNotGiveItsBlockBack() {
+		// The counter document rolls back with the transaction it was written in, as it does in MongoDB
+		AtomicReference<Long> seq = new AtomicReference<>();
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.exists(any(Query.class), eq(MemberIdAllocator.COLLECTION))).thenAnswer(invocation -> seq.get() != null);
+		when(mongoTemplate.stream(any(Query.class), eq(Member.class))).thenAnswer(invocation -> Stream.of(member("LIB2025004")));
+		when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class), eq(MemberIdAllocator.COLLECTION)))
+				.thenAnswer(invocation -> {
+					Update update = invocation.getArgument(1);
+					long floor = ((Number) update.getUpdateObject().get("$max", Document.class).get("seq")).longValue();
+					write(seq, current -> current == null ? floor : Math.max(current, floor));
+					return null;
+				});
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+				eq(Document.class), eq(MemberIdAllocator.COLLECTION))).thenAnswer(invocation -> {
+			Update update = invocation.getArgument(1);
+			long size = ((Number) update.getUpdateObject().get("$inc", Document.class).get("seq")).longValue();
+			return new Document("seq", write(seq, current -> (current == null ? 0 : current) + size));
+		});
+
+		InMemoryTransactionManager transactionManager = new InMemoryTransactionManager();
+		MemberIdAllocator allocator = new MemberIdAllocator(mongoTemplate, transactionManager, "LIB", "2025", 5);
+		String rolledBack = new TransactionTemplate(transactionManager).execute(status -> {
+			String id = allocator.nextId();
+			status.setRollbackOnly(); // e.g. the insert hit a duplicate email
+			return id;
+		});
+
+		// Another instance, or this one after a restart
+		String next = new MemberIdAllocator(mongoTemplate, transactionManager, "LIB", "2025", 5).nextId();
+
+		assertEquals("LIB2025005", rolledBack);
+		assertEquals("LIB2025010", next);
+		assertEquals("LIB2025006", allocator.nextId());
+	}
+
+	// Applies a write to the counter and undoes it if it was made inside a transaction that rolls back
+	private static long write(AtomicReference<Long> seq, UnaryOperator<Long> change) {
+		Long before = seq.get();
+		Long after = change.apply(before);
+		seq.set(after);
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) seq.set(before);
+				}
+			});
+		}
+		return after;
+	}
+
+	private static Member member(String memberId) {
+		Member member = new Member();
+		member.setMemberId(memberId);
+		return member;
+	}
+
+	/** Tracks only whether a transaction is open on the current thread; enough for suspend and rollback. */
+	static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+		private final ThreadLocal<Boolean> active = ThreadLocal.withInitial(() -> false);
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return active.get();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			active.set(true);
+		}
+
+		@Override
+		protected Object doSuspend(Object transaction) {
+			active.set(false);
+			return Boolean.TRUE;
+		}
+
+		@Override
+		protected void doResume(Object transaction, Object suspendedResources) {
+			active.set(true);
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			active.set(false);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.management.library.UserManagement.Service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendGridClientTest {
+
+	private static final String REJECTED = "rejected@example.com";
+
+	private HttpServer server;
+	private SendGridClient client;
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@BeforeEach
+	void startStub() throws IOException {
+		// Accepts every mail/send request except one naming the rejected address
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v3/mail/send", exchange -> {
+			requests.incrementAndGet();
+			String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(body.contains(REJECTED) ? 400 : 202, -1);
+			exchange.close();
+		});
+		server.start();
+		client = new SendGridClient("http://127.0.0.1:" + server.getAddress().getPort(), "test-key",
+				"library@example.com", "Library", 2000, 5000, 4);
+	}
+
+	@AfterEach
+	void stopStub() {
+		client.shutdown();
+		server.stop(0);
+	}
+
+	@Test
+	void bulkSendReportsEachBatchAndKeepsGoingAfterAFailure() {
+		List<SendGridClient.Recipient> recipients = new ArrayList<>();
+		for (int i = 0; i < 2500; i++) {
+			recipients.add(new SendGridClient.Recipient(i == 1200 ? REJECTED : "member" + i + "@example.com"));
+		}
+
+		List<SendGridClient.BatchResult> results = client.sendBulk("Notice", "<p>Hi</p>", "Hi", recipients);
+
+		assertEquals(3, requests.get());
+		assertEquals(3, results.size());
+		assertTrue(results.get(0).delivered());
+		assertEquals(1000, results.get(0).recipients());
+		assertFalse(results.get(1).delivered());
+		assertEquals(1000, results.get(1).from());
+		assertTrue(results.get(2).delivered());
+		assertEquals(500, results.get(2).recipients());
+	}
+}
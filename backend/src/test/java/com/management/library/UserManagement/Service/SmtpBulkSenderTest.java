@@ -0,0 +1,105 @@
+package com.management.library.UserManagement.Service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SmtpBulkSenderTest {
+
+	private static final int MESSAGES = 10;
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	@Test
+	void droppedSessionResendsOnlyTheMessagesItCutOff() throws Exception {
+		// The connection drops while the fifth message of the batch is being sent
+		DroppingMailSender mailSender = new DroppingMailSender(5);
+		mailSender.setHost("127.0.0.1");
+		mailSender.setPort(ServerSetupTest.SMTP.getPort());
+		SmtpBulkSender sender = new SmtpBulkSender(mailSender, 1, MESSAGES, 3, 0);
+
+		List<MimeMessage> messages = new ArrayList<>();
+		for (int i = 0; i < MESSAGES; i++) {
+			MimeMessage message = mailSender.createMimeMessage();
+			MimeMessageHelper helper = new MimeMessageHelper(message);
+			helper.setFrom("library@example.com");
+			helper.setTo("member" + i + "@example.com");
+			helper.setSubject("Notice " + i);
+			helper.setText("Hello");
+			messages.add(message);
+		}
+
+		EmailService.BulkResult result = sender.send(messages);
+		sender.shutdown();
+
+		assertEquals(MESSAGES, result.sent());
+		assertEquals(0, result.failed());
+		// One attempt per message plus one resend of the message that was cut off
+		assertEquals(MESSAGES + 1, mailSender.attempts.get());
+		// The batch reconnected after the drop, then the retry used a fresh session
+		assertEquals(3, mailSender.connections.get());
+
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertEquals(MESSAGES, received.length);
+		Set<String> recipients = new HashSet<>();
+		for (MimeMessage message : received) {
+			recipients.add(message.getAllRecipients()[0].toString());
+		}
+		assertEquals(MESSAGES, recipients.size());
+	}
+
+	/** Closes the SMTP connection under the n-th message sent, as a server dropping the session would. */
+	static class DroppingMailSender extends JavaMailSenderImpl {
+
+		private final int dropAt;
+		final AtomicInteger attempts = new AtomicInteger();
+		final AtomicInteger connections = new AtomicInteger();
+
+		DroppingMailSender(int dropAt) {
+			this.dropAt = dropAt;
+		}
+
+		@Override
+		protected Transport connectTransport() throws MessagingException {
+			connections.incrementAndGet();
+			Transport transport = super.connectTransport();
+			return new Transport(getSession(), null) {
+				@Override
+				public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+					if (attempts.incrementAndGet() == dropAt) {
+						transport.close();
+						throw new MessagingException("Connection dropped");
+					}
+					transport.sendMessage(message, addresses);
+				}
+
+				@Override
+				public boolean isConnected() {
+					return transport.isConnected();
+				}
+
+				@Override
+				public void close() throws MessagingException {
+					transport.close();
+				}
+			};
+		}
+	}
+}
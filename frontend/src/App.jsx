@@ -152,7 +152,7 @@ const LibraryManagement = () => {
   // Handle form submit
   const handleFormSubmit = (bookData) => {
     if (editingBook) {
-      updateBook(editingBook.id, bookData);
+      updateBook(editingBook.id, { ...bookData, version: editingBook.version });
     } else {
       addBook(bookData);
     }
@@ -10,12 +10,35 @@ const getBaseURL = () => {
 
 const BASE = getBaseURL();
 
+// Session token issued at login (user or member login), sent so the backend can skip user lookups
+function sessionToken() {
+  try {
+    const user = JSON.parse(localStorage.getItem('user') || '{}')
+    const member = JSON.parse(localStorage.getItem('member') || '{}')
+    return user.sessionToken || member.sessionToken || null
+  } catch {
+    return null
+  }
+}
+
 async function request(path, options = {}) {
+  const token = sessionToken()
+  // Merge caller headers (e.g. Idempotency-Key) with the defaults instead of replacing them
+  const { headers, ...rest } = options
   const res = await fetch(`${BASE}${path}`, {
-    headers: { 'Content-Type': 'application/json' },
     credentials: 'include',
-    ...options,
+    ...rest,
+    headers: {
+      'Content-Type': 'application/json',
+      ...headers,
+      ...(token ? { Authorization: `Bearer ${token}` } : {}),
+    },
   })
+  if (res.status === 401 && token) {
+    // Session expired or was revoked (e.g. account deactivated): drop it and log in again
+    ['user', 'member', 'isAuthenticated', 'isAdmin', 'isMemberAuthenticated'].forEach((k) => localStorage.removeItem(k))
+    window.location.assign('/login')
+  }
   if (!res.ok) {
     const text = await res.text()
     throw new Error(text || res.statusText)
@@ -29,6 +52,7 @@ export const api = {
   // Book CRUD operations
   listBooks: () => request('/books'),
   getBook: (id) => request(`/books/${id}`),
+  getBooksBatch: (ids) => request(`/books/batch?ids=${ids.map(encodeURIComponent).join(',')}`),
   createBook: (data) => request('/books', { method: 'POST', body: JSON.stringify(data) }),
   updateBook: (id, data) => request(`/books/${id}`, { method: 'PUT', body: JSON.stringify(data) }),
   deleteBook: (id) => request(`/books/${id}`, { method: 'DELETE' }),
@@ -60,9 +84,11 @@ export const api = {
   createUser: (data) => request('/users', { method: 'POST', body: JSON.stringify(data) }),
   updateUser: (id, data) => request(`/users/${id}`, { method: 'PUT', body: JSON.stringify(data) }),
   deleteUser: (id) => request(`/users/${id}`, { method: 'DELETE' }),
+  getUsersBatch: (ids) => request(`/users/batch?ids=${ids.map(encodeURIComponent).join(',')}`),
   
   // User authentication
   loginUser: (data) => request('/users/login', { method: 'POST', body: JSON.stringify(data) }),
+  getSession: () => request('/users/session'),
   changePassword: (id, data) => request(`/users/${id}/change-password`, { method: 'PUT', body: JSON.stringify(data) }),
   forgotPassword: (data) => request('/users/password/forgot', { method: 'POST', body: JSON.stringify(data) }),
   resetPassword: (data) => request('/users/password/reset', { method: 'POST', body: JSON.stringify(data) }),
@@ -79,7 +105,13 @@ export const api = {
   listMembers: () => request('/members'),
   getMember: (id) => request(`/members/${id}`),
   getMemberByMemberId: (memberId) => request(`/members/member-id/${memberId}`),
+  getMembersBatch: (ids) => request(`/members/batch?ids=${ids.map(encodeURIComponent).join(',')}`),
   getMemberByUserId: (userId) => request(`/members/user/${userId}`),
+  // Member of the logged-in user, resolved from the session token
+  getCurrentMember: () => request('/members/me'),
+  // Member, user, loans, holds and their books in one call
+  getMemberProfile: (userId) => request(`/members/user/${userId}/profile`),
+  getCurrentMemberProfile: () => request('/members/me/profile'),
   createMember: (data) => request('/members', { method: 'POST', body: JSON.stringify(data) }),
   createMemberFromUser: (userId, firstName, lastName, email) => request(`/members/auto-create?userId=${userId}&firstName=${firstName}&lastName=${lastName}&email=${email}`, { method: 'POST' }),
   updateMember: (id, data) => request(`/members/${id}`, { method: 'PUT', body: JSON.stringify(data) }),
@@ -93,6 +125,7 @@ export const api = {
   searchMembers: (query) => request(`/members/search?query=${encodeURIComponent(query)}`),
   
   // Member statistics
+  getMemberStats: () => request('/members/stats'),
   getTotalMembersCount: () => request('/members/stats/total'),
   getMemberCountByMembershipType: (membershipType) => request(`/members/stats/membership-type/${membershipType}`),
   getMemberCountByStatus: (status) => request(`/members/stats/status/${status}`),
@@ -101,17 +134,31 @@ export const api = {
 
   // ===== BORROWINGS API =====
   listBorrowings: (params) => request(`/borrowings${params?.memberId ? `?memberId=${encodeURIComponent(params.memberId)}` : ''}`),
-  createBorrowing: (data) => request('/borrowings', { method: 'POST', body: JSON.stringify(data) }),
+  // Pass the same idempotencyKey when retrying one submission so the server replays the first result
+  createBorrowing: (data, idempotencyKey) => request('/borrowings', { method: 'POST', body: JSON.stringify(data), headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {} }),
   updateBorrowing: (id, data) => request(`/borrowings/${id}`, { method: 'PUT', body: JSON.stringify(data) }),
   returnBorrowing: (id) => request(`/borrowings/${id}/return`, { method: 'POST' }),
   deleteBorrowing: (id) => request(`/borrowings/${id}`, { method: 'DELETE' }),
 
   // ===== RESERVATIONS API =====
   listReservations: (params) => request(`/reservations${params?.memberId ? `?memberId=${encodeURIComponent(params.memberId)}` : ''}`),
-  createReservation: (data) => request('/reservations', { method: 'POST', body: JSON.stringify(data) }),
+  createReservation: (data, idempotencyKey) => request('/reservations', { method: 'POST', body: JSON.stringify(data), headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {} }),
   updateReservation: (id, data) => request(`/reservations/${id}`, { method: 'PUT', body: JSON.stringify(data) }),
   receiveReservation: (id) => request(`/reservations/${id}/receive`, { method: 'POST' }),
   deleteReservation: (id) => request(`/reservations/${id}`, { method: 'DELETE' }),
 }
 
+// Matches the server's app.batch.max-ids
+const BATCH_SIZE = 100
 
+// Resolves ids through one of the /batch endpoints, BATCH_SIZE at a time, into an id -> record map
+export async function loadByIds(fetchBatch, ids) {
+  const unique = [...new Set(ids.filter(Boolean))]
+  const byId = {}
+  for (let i = 0; i < unique.length; i += BATCH_SIZE) {
+    const res = await fetchBatch(unique.slice(i, i + BATCH_SIZE))
+    const records = Array.isArray(res) ? res : res?.data || []
+    records.forEach((r) => { byId[r.id] = r })
+  }
+  return byId
+}
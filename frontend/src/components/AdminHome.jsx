@@ -153,7 +153,7 @@ const AdminHome = () => {
 
   const handleFormSubmit = (bookData) => {
     if (editingBook) {
-      updateBook(editingBook.id, bookData);
+      updateBook(editingBook.id, { ...bookData, version: editingBook.version });
     } else {
       addBook(bookData);
     }
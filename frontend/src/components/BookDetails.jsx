@@ -1,4 +1,4 @@
-import React, { useState } from 'react';
+import React, { useRef, useState } from 'react';
 import { api } from '../api';
 import './BookDetails.css';
 
@@ -6,6 +6,8 @@ const BookDetails = ({ book, onClose, onBorrowSuccess }) => {
   const [quantity, setQuantity] = useState(1);
   const [borrowing, setBorrowing] = useState(false);
   const [error, setError] = useState('');
+  // Kept across retries of this borrow so a lost response does not create a second loan
+  const borrowKey = useRef(crypto.randomUUID());
 
   if (!book) {
     return null;
@@ -14,6 +16,7 @@ const BookDetails = ({ book, onClose, onBorrowSuccess }) => {
   const handleQuantityChange = (e) => {
     const value = parseInt(e.target.value);
     setQuantity(Math.max(1, Math.min(value, book.availableCopies || 1)));
+    borrowKey.current = crypto.randomUUID();
   };
 
   const handleBorrow = async () => {
@@ -33,8 +36,8 @@ const BookDetails = ({ book, onClose, onBorrowSuccess }) => {
     setError('');
 
     try {
-      // Get member info using user ID
-      const memberResponse = await api.getMemberByUserId(user.id);
+      // Member of the logged-in user, resolved from the session token
+      const memberResponse = await api.getCurrentMember();
       if (!memberResponse.success) {
         throw new Error('Member information not found');
       }
@@ -50,25 +53,16 @@ const BookDetails = ({ book, onClose, onBorrowSuccess }) => {
       const borrowingData = {
         memberId: memberId,
         bookId: book.id,
-        borrowDate: new Date().toISOString(),
-        dueDate: new Date(Date.now() + 14 * 24 * 60 * 60 * 1000).toISOString(), // 14 days from now
+        // Date-only values keep a retried request identical to the first one
+        borrowDate: new Date().toISOString().slice(0, 10),
+        dueDate: new Date(Date.now() + 14 * 24 * 60 * 60 * 1000).toISOString().slice(0, 10), // 14 days from now
         status: 'ACTIVE',
         lateFee: 0,
         quantity: quantity
       };
 
-      const borrowingResult = await api.createBorrowing(borrowingData);
-
-      // Update book availability if needed
-      const newAvailableCopies = book.availableCopies - quantity;
-      const updateBookData = {
-        ...book,
-        availableCopies: newAvailableCopies,
-        availability: newAvailableCopies > 0
-      };
-
-      // Update book in the backend
-      await api.updateBook(book.id, updateBookData);
+      // The server takes the copy off the shelf as part of the checkout
+      const borrowingResult = await api.createBorrowing(borrowingData, borrowKey.current);
 
       // Success - call callback if provided
       if (onBorrowSuccess) {
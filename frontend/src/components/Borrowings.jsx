@@ -1,7 +1,7 @@
-import { useEffect, useMemo, useState } from 'react'
+import { useEffect, useMemo, useRef, useState } from 'react'
 import { addDays, toISODateInput } from '../utils'
 import './AdminTheme.css'
-import { api } from '../api'
+import { api, loadByIds } from '../api'
 
 const STORAGE_KEY = 'borrowings'
 
@@ -25,8 +25,13 @@ export default function Borrowings() {
   const [items, setItems] = useState([])
   const [form, setForm] = useState(emptyForm())
   const [editingId, setEditingId] = useState('')
+  // Idempotency key of the current submission: reused if it is retried, renewed once the form changes
+  const submitKey = useRef(crypto.randomUUID())
   const [filter, setFilter] = useState('ALL')
   const [search, setSearch] = useState('')
+  // Titles and names for the ids in the table, fetched with the batch endpoints
+  const [books, setBooks] = useState({})
+  const [members, setMembers] = useState({})
 
   useEffect(() => {
     function load() { api.listBorrowings().then(setItems).catch(() => {}) }
@@ -36,6 +41,14 @@ export default function Borrowings() {
     return () => window.removeEventListener('borrowings:refresh', handler)
   }, [])
 
+  useEffect(() => {
+    loadByIds(api.getBooksBatch, items.map((it) => it.bookId)).then(setBooks).catch(() => {})
+    loadByIds(api.getMembersBatch, items.map((it) => it.memberId)).then(setMembers).catch(() => {})
+  }, [items])
+
+  const bookLabel = (id) => books[id]?.title || id
+  const memberLabel = (id) => (members[id] ? `${members[id].firstName} ${members[id].lastName}` : id)
+
   const visibleItems = useMemo(() => {
     let filtered = items
     if (filter === 'ACTIVE') filtered = filtered.filter((it) => it.status === 'ACTIVE')
@@ -47,15 +60,18 @@ export default function Borrowings() {
         (it) =>
           it.bookId.toLowerCase().includes(lower) ||
           it.memberId.toLowerCase().includes(lower) ||
+          bookLabel(it.bookId).toLowerCase().includes(lower) ||
+          memberLabel(it.memberId).toLowerCase().includes(lower) ||
           toISODateInput(it.borrowDate).includes(lower)
       )
     }
     return filtered
-  }, [items, filter, search])
+  }, [items, filter, search, books, members])
 
   function handleChange(e) {
     const { name, value } = e.target
     setForm((f) => ({ ...f, [name]: value }))
+    submitKey.current = crypto.randomUUID()
   }
 
   async function createBorrowing(e) {
@@ -67,9 +83,10 @@ export default function Borrowings() {
       dueDate: form.dueDate,
       returnDate: form.returnDate || null,
     }
-    const created = await api.createBorrowing(payload)
+    const created = await api.createBorrowing(payload, submitKey.current)
     setItems((prev) => [created, ...prev])
     setForm(emptyForm())
+    submitKey.current = crypto.randomUUID()
   }
 
   function startEdit(id) {
@@ -86,6 +103,7 @@ export default function Borrowings() {
       returnDate: item.returnDate ? toISODateInput(item.returnDate) : '',
       status: item.status,
       lateFee: item.lateFee,
+      version: item.version,
     })
   }
 
@@ -97,6 +115,8 @@ export default function Borrowings() {
       borrowDate: form.borrowDate,
       dueDate: form.dueDate,
       returnDate: form.returnDate || null,
+      // Lets the backend reject the edit with 409 if someone else changed the loan meanwhile
+      version: form.version,
     }
     const updated = await api.updateBorrowing(editingId, payload)
     setItems((prev) => prev.map((it) => (it.id === editingId ? updated : it)))
@@ -218,8 +238,8 @@ export default function Borrowings() {
               <tr key={it.id}>
                 <td>{idx + 1}</td>
                 <td>{it.borrowingNumber}</td>
-                <td>{it.memberId}</td>
-                <td>{it.bookId}</td>
+                <td title={it.memberId}>{memberLabel(it.memberId)}</td>
+                <td title={it.bookId}>{bookLabel(it.bookId)}</td>
                 <td>{toISODateInput(it.borrowDate)}</td>
                 <td>{toISODateInput(it.dueDate)}</td>
                 <td>{it.returnDate ? toISODateInput(it.returnDate) : '-'}</td>
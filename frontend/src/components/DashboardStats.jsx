@@ -157,36 +157,20 @@ const DashboardStats = () => {
     try {
       setLoading(true);
       
-      // Fetch all member statistics in parallel
-      const [
-        totalResponse,
-        activeResponse,
-        suspendedResponse,
-        premiumResponse,
-        basicResponse,
-        studentResponse,
-        familyResponse,
-        finesResponse
-      ] = await Promise.all([
-        api.getTotalMembersCount(),
-        api.getMemberCountByStatus('ACTIVE'),
-        api.getMemberCountByStatus('SUSPENDED'),
-        api.getMemberCountByMembershipType('PREMIUM'),
-        api.getMemberCountByMembershipType('BASIC'),
-        api.getMemberCountByMembershipType('STUDENT'),
-        api.getMemberCountByMembershipType('FAMILY'),
-        api.getMembersWithFines()
-      ]);
+      const response = await api.getMemberStats();
+      const stats = response.data || {};
+      const byStatus = stats.byStatus || {};
+      const byType = stats.byMembershipType || {};
 
       setMemberStats({
-        totalMembers: totalResponse.data || 0,
-        activeMembers: activeResponse.data || 0,
-        suspendedMembers: suspendedResponse.data || 0,
-        premiumMembers: premiumResponse.data || 0,
-        basicMembers: basicResponse.data || 0,
-        studentMembers: studentResponse.data || 0,
-        familyMembers: familyResponse.data || 0,
-        membersWithFines: finesResponse.data?.length || 0
+        totalMembers: stats.totalMembers || 0,
+        activeMembers: byStatus.ACTIVE || 0,
+        suspendedMembers: byStatus.SUSPENDED || 0,
+        premiumMembers: byType.PREMIUM || 0,
+        basicMembers: byType.BASIC || 0,
+        studentMembers: byType.STUDENT || 0,
+        familyMembers: byType.FAMILY || 0,
+        membersWithFines: stats.membersWithFines || 0
       });
     } catch (error) {
       console.error('Error fetching member statistics:', error);
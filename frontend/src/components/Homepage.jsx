@@ -40,7 +40,7 @@ const Homepage = () => {
     if (!userId) return;
     
     try {
-      const response = await api.getMemberByUserId(userId);
+      const response = await api.getCurrentMember();
       if (response.success) {
         setIsExistingMember(true);
       }
@@ -89,15 +89,15 @@ const Login = () => {
 
   const handlePasswordReset = async (e) => {
     e.preventDefault();
-    if (!resetToken || !newPassword) {
-      setError('Please enter token and new password');
+    if (!forgotEmail || !resetToken || !newPassword) {
+      setError('Please enter your email, token and new password');
       return;
     }
     setLoading(true);
     setError('');
     setForgotStatus('');
     try {
-      await api.resetPassword({ token: resetToken, newPassword });
+      await api.resetPassword({ token: resetToken, newPassword, email: forgotEmail });
       setForgotStatus('Password reset successful. You can now log in.');
       setShowForgot(false);
       setResetToken('');
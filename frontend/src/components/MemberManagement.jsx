@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from 'react';
-import { api } from '../api';
+import { api, loadByIds } from '../api';
 import './AdminTheme.css';
 
 const MemberManagement = () => {
@@ -10,6 +10,8 @@ const MemberManagement = () => {
   const [searchQuery, setSearchQuery] = useState('');
   const [statusFilter, setStatusFilter] = useState('ALL');
   const [membershipTypeFilter, setMembershipTypeFilter] = useState('ALL');
+  // Login accounts linked to the listed members, keyed by user ID
+  const [accounts, setAccounts] = useState({});
   
   // Modal states
   const [showCreateModal, setShowCreateModal] = useState(false);
@@ -31,7 +33,6 @@ const MemberManagement = () => {
     joiningDate: '',
     expiryDate: '',
     borrowingLimit: 0,
-    fineAmount: 0,
     profilePictureUrl: ''
   });
 
@@ -51,6 +52,9 @@ const MemberManagement = () => {
       if (response.success) {
         setMembers(response.data);
         setFilteredMembers(response.data);
+        loadByIds(api.getUsersBatch, response.data.map(member => member.userId))
+          .then(setAccounts)
+          .catch(() => {});
       } else {
         setError('Failed to fetch members');
       }
@@ -189,7 +193,6 @@ const MemberManagement = () => {
       joiningDate: '',
       expiryDate: '',
       borrowingLimit: 0,
-      fineAmount: 0,
       profilePictureUrl: ''
     });
   };
@@ -210,8 +213,8 @@ const MemberManagement = () => {
       joiningDate: member.joiningDate || '',
       expiryDate: member.expiryDate || '',
       borrowingLimit: member.borrowingLimit || 0,
-      fineAmount: member.fineAmount || 0,
-      profilePictureUrl: member.profilePictureUrl || ''
+      profilePictureUrl: member.profilePictureUrl || '',
+      version: member.version
     });
     setShowEditModal(true);
   };
@@ -330,6 +333,7 @@ const MemberManagement = () => {
                 <th>Member ID</th>
                 <th>Name</th>
                 <th>Email</th>
+                <th>Account</th>
                 <th>Phone</th>
                 <th>Membership Type</th>
                 <th>Status</th>
@@ -341,7 +345,7 @@ const MemberManagement = () => {
             <tbody>
               {filteredMembers.length === 0 ? (
                 <tr>
-                  <td colSpan="9" className="admin-text-center" style={{ padding: '40px', color: 'var(--admin-gray-500)', fontStyle: 'italic' }}>
+                  <td colSpan="10" className="admin-text-center" style={{ padding: '40px', color: 'var(--admin-gray-500)', fontStyle: 'italic' }}>
                     No members found
                   </td>
                 </tr>
@@ -353,6 +357,7 @@ const MemberManagement = () => {
                     </td>
                     <td>{member.firstName} {member.lastName}</td>
                     <td>{member.email}</td>
+                    <td>{accounts[member.userId]?.username || 'N/A'}</td>
                     <td>{member.phoneNumber || 'N/A'}</td>
                     <td>
                       <span className={`admin-badge admin-badge-${getMembershipTypeColor(member.membershipType)}`}>
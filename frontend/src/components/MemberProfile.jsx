@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { api } from '../api';
 import './MemberProfile.css';
@@ -40,6 +40,7 @@ const MemberProfile = () => {
   // Borrowings & Reservations
   const [myBorrowings, setMyBorrowings] = useState([]);
   const [myReservations, setMyReservations] = useState([]);
+  const [bookIndex, setBookIndex] = useState({});
   const [newReservation, setNewReservation] = useState({ bookId: '', reservationDate: new Date().toISOString().slice(0,10) });
 
   // Professional modal state for borrowing details
@@ -59,17 +60,18 @@ const MemberProfile = () => {
       return;
     }
     setUser(userData);
-    loadMemberProfile(userData.id);
+    loadMemberProfile();
   }, [navigate]);
 
-  const loadMemberProfile = async (userId) => {
+  // One request returns the member, user, loans, holds and the books they reference; the
+  // backend resolves the account from the session token
+  const loadMemberProfile = async () => {
     try {
-      const memberResponse = await api.getMemberByUserId(userId);
-      if (memberResponse.success) {
-        setMember(memberResponse.data);
-        const userResponse = await api.getUser(userId);
-        if (userResponse.success) {
-          const userData = userResponse.data;
+      const profileResponse = await api.getCurrentMemberProfile();
+      if (profileResponse.success) {
+        const { member: memberData, user: userData, borrowings, reservations, books: bookMap } = profileResponse.data;
+        setMember(memberData);
+        if (userData) {
           setProfileData({
             firstName: userData.firstName || '',
             lastName: userData.lastName || '',
@@ -78,6 +80,9 @@ const MemberProfile = () => {
             dateOfBirth: userData.dateOfBirth || ''
           });
         }
+        setMyBorrowings(borrowings || []);
+        setMyReservations(reservations || []);
+        setBookIndex(bookMap || {});
       }
     } catch (err) {
       console.error('Error loading member profile:', err);
@@ -174,22 +179,6 @@ const MemberProfile = () => {
     setFilteredBooks(filtered);
   }, [books, selectedGenre, searchQuery, availabilityFilter]);
 
-  useEffect(() => {
-    if (member?.id || member?.memberId) {
-      const memberKey = member.memberId || member.id;
-      (async () => {
-        try {
-          const borrowings = await api.listBorrowings({ memberId: memberKey });
-          const reservations = await api.listReservations({ memberId: memberKey });
-          setMyBorrowings(Array.isArray(borrowings) ? borrowings.filter(b => b.memberId === memberKey) : []);
-          setMyReservations(Array.isArray(reservations) ? reservations.filter(r => r.memberId === memberKey) : []);
-        } catch (err) {
-          // ignore
-        }
-      })();
-    }
-  }, [member]);
-
   useEffect(() => {
     if (user?.id) {
       const savedPicture = localStorage.getItem(`profilePicture_${user.id}`);
@@ -201,12 +190,18 @@ const MemberProfile = () => {
     fetchBooks();
   }, []);
 
+  // One idempotency key per reservation request, reused when the same request is retried
+  const reservationKey = useRef({ payload: '', key: '' });
+
   async function createMyReservation(e) {
     e.preventDefault();
     if (!member?.memberId || !newReservation.bookId) return;
     try {
       const payload = { memberId: member.memberId, bookId: newReservation.bookId, reservationDate: newReservation.reservationDate, status: 'PENDING' };
-      const created = await api.createReservation(payload);
+      const body = JSON.stringify(payload);
+      if (reservationKey.current.payload !== body) reservationKey.current = { payload: body, key: crypto.randomUUID() };
+      const created = await api.createReservation(payload, reservationKey.current.key);
+      reservationKey.current = { payload: '', key: '' };
       setMyReservations((prev) => [created, ...prev]);
       setNewReservation({ bookId: '', reservationDate: new Date().toISOString().slice(0,10) });
     } catch (err) {
@@ -248,11 +243,7 @@ const MemberProfile = () => {
   const handleBorrowSuccess = async (borrowingResult, book) => {
     try {
       // Refresh borrowings list to show the new borrowing
-      if (member?.id || member?.memberId) {
-        const memberKey = member.memberId || member.id;
-        const borrowings = await api.listBorrowings({ memberId: memberKey });
-        setMyBorrowings(Array.isArray(borrowings) ? borrowings.filter(b => b.memberId === memberKey) : []);
-      }
+      if (user?.id) await loadMemberProfile();
 
       // Refresh books list to update availability
       await fetchBooks();
@@ -273,11 +264,13 @@ const MemberProfile = () => {
       setLoading(true);
 
       // Get book details from backend
-      let bookData = null;
-      try {
-        bookData = await api.getBook(borrowing.bookId);
-      } catch (error) {
-        console.error('Error fetching book details:', error);
+      let bookData = bookIndex[borrowing.bookId] || null;
+      if (!bookData) {
+        try {
+          bookData = await api.getBook(borrowing.bookId);
+        } catch (error) {
+          console.error('Error fetching book details:', error);
+        }
       }
 
       // Calculate borrowing details
@@ -318,11 +311,13 @@ const MemberProfile = () => {
       setLoading(true);
 
       // Get book details from backend
-      let bookData = null;
-      try {
-        bookData = await api.getBook(reservation.bookId);
-      } catch (error) {
-        console.error('Error fetching book details:', error);
+      let bookData = bookIndex[reservation.bookId] || null;
+      if (!bookData) {
+        try {
+          bookData = await api.getBook(reservation.bookId);
+        } catch (error) {
+          console.error('Error fetching book details:', error);
+        }
       }
 
       // Calculate reservation details
@@ -736,7 +731,7 @@ const MemberProfile = () => {
                   <button type="submit" className="save-btn">
                     {loading ? 'Saving...' : 'Save Changes'}
                   </button>
-                  <button type="button" className="cancel-btn" onClick={() => { setEditMode(false); loadMemberProfile(user.id); }}>
+                  <button type="button" className="cancel-btn" onClick={() => { setEditMode(false); loadMemberProfile(); }}>
                     Cancel
                   </button>
                 </div>
@@ -1048,28 +1043,11 @@ const MemberProfile = () => {
     try {
       setLoading(true);
 
-      // Update borrowing status to RETURNED
+      // Update borrowing status to RETURNED; the server puts the copy back on the shelf
       await api.returnBorrowing(borrowing.id);
 
-      // Get book details to update availability
-      const bookData = await api.getBook(borrowing.bookId);
-
-      // Update book availability (increase available copies)
-      const updatedBookData = {
-        ...bookData,
-        availableCopies: (bookData.availableCopies || 0) + (borrowing.quantity || 1),
-        availability: true
-      };
-
-      // Update book in backend
-      await api.updateBook(borrowing.bookId, updatedBookData);
-
       // Refresh borrowings list
-      if (member?.id || member?.memberId) {
-        const memberKey = member.memberId || member.id;
-        const borrowings = await api.listBorrowings({ memberId: memberKey });
-        setMyBorrowings(Array.isArray(borrowings) ? borrowings.filter(b => b.memberId === memberKey) : []);
-      }
+      if (user?.id) await loadMemberProfile();
 
       // Refresh books list
       await fetchBooks();
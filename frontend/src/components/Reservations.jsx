@@ -1,7 +1,7 @@
-import { useEffect, useMemo, useState } from 'react'
+import { useEffect, useMemo, useRef, useState } from 'react'
 import { toISODateInput } from '../utils'
 import './AdminTheme.css'
-import { api } from '../api'
+import { api, loadByIds } from '../api'
 
 const STORAGE_KEY = 'reservations'
 
@@ -21,12 +21,22 @@ export default function Reservations() {
   const [items, setItems] = useState([])
   const [form, setForm] = useState(emptyForm())
   const [editingId, setEditingId] = useState('')
+  // Idempotency key of the current submission: reused if it is retried, renewed once the form changes
+  const submitKey = useRef(crypto.randomUUID())
   const [filter, setFilter] = useState('ALL')
+  // Titles and names for the ids in the table, fetched with the batch endpoints
+  const [books, setBooks] = useState({})
+  const [members, setMembers] = useState({})
 
   useEffect(() => {
     api.listReservations().then(setItems).catch(() => {})
   }, [])
 
+  useEffect(() => {
+    loadByIds(api.getBooksBatch, items.map((it) => it.bookId)).then(setBooks).catch(() => {})
+    loadByIds(api.getMembersBatch, items.map((it) => it.memberId)).then(setMembers).catch(() => {})
+  }, [items])
+
   const visibleItems = useMemo(() => {
     if (filter === 'ALL') return items
     return items.filter((it) => it.status === filter)
@@ -35,14 +45,16 @@ export default function Reservations() {
   function handleChange(e) {
     const { name, value } = e.target
     setForm((f) => ({ ...f, [name]: value }))
+    submitKey.current = crypto.randomUUID()
   }
 
   async function createReservation(e) {
     e.preventDefault()
     const payload = { memberId: form.memberId, bookId: form.bookId, reservationDate: form.reservationDate, status: form.status || 'PENDING' }
-    const created = await api.createReservation(payload)
+    const created = await api.createReservation(payload, submitKey.current)
     setItems((prev) => [created, ...prev])
     setForm(emptyForm())
+    submitKey.current = crypto.randomUUID()
   }
 
   function startEdit(id) {
@@ -56,12 +68,13 @@ export default function Reservations() {
       bookId: item.bookId,
       reservationDate: toISODateInput(item.reservationDate),
       status: item.status,
+      version: item.version,
     })
   }
 
   async function saveEdit(e) {
     e.preventDefault()
-    const payload = { memberId: form.memberId, bookId: form.bookId, reservationDate: form.reservationDate, status: form.status }
+    const payload = { memberId: form.memberId, bookId: form.bookId, reservationDate: form.reservationDate, status: form.status, version: form.version }
     const updated = await api.updateReservation(editingId, payload)
     setItems((prev) => prev.map((it) => (it.id === editingId ? updated : it)))
     setEditingId('')
@@ -158,8 +171,8 @@ export default function Reservations() {
               <tr key={it.id}>
                 <td>{idx + 1}</td>
                 <td>{it.reservationNumber}</td>
-                <td>{it.memberId}</td>
-                <td>{it.bookId}</td>
+                <td title={it.memberId}>{members[it.memberId] ? `${members[it.memberId].firstName} ${members[it.memberId].lastName}` : it.memberId}</td>
+                <td title={it.bookId}>{books[it.bookId]?.title || it.bookId}</td>
                 <td>{toISODateInput(it.reservationDate)}</td>
                 <td>
                   <span className={`admin-badge ${it.status === 'PENDING' ? 'admin-badge-warning' : it.status === 'RECEIVED' ? 'admin-badge-success' : 'admin-badge-secondary'}`}>